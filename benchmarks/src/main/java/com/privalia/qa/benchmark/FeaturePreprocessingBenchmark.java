@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.benchmark;
+
+import com.privalia.qa.aspects.LoopIncludeTagAspect;
+import com.privalia.qa.utils.ThreadProperty;
+import io.cucumber.core.resource.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Preprocessing of a feature (@loop, @include and @BACKGROUND tags and placeholders), as done by
+ * {@link LoopIncludeTagAspect} every time cucumber reads a feature.
+ * <p>
+ * The cache parameter is the value of the FEATURE_CACHE system property: with "none" every invocation
+ * processes the feature, with "memory" only the first one does
+ *
+ * @author Jose Fernandez
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FeaturePreprocessingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int scenarios;
+
+    @Param({"none", "memory"})
+    private String cache;
+
+    private final LoopIncludeTagAspect aspect = new LoopIncludeTagAspect();
+
+    private Path directory;
+
+    private Resource resource;
+
+    @Setup
+    public void setUp() throws IOException {
+        System.setProperty("FEATURE_CACHE", cache);
+        System.setProperty("BENCH_LOOP_LIST", "first,second,third");
+        System.setProperty("BENCH_BACKGROUND", "true");
+        ThreadProperty.set("BENCH_VAR_0", "value0");
+
+        directory = Files.createTempDirectory("gingerspec-benchmark");
+        Files.write(directory.resolve("included.feature"), SyntheticData.includedFeature().getBytes(StandardCharsets.UTF_8));
+        Path feature = directory.resolve("synthetic.feature");
+        byte[] content = SyntheticData.feature(scenarios).getBytes(StandardCharsets.UTF_8);
+        Files.write(feature, content);
+
+        URI uri = feature.toUri();
+        resource = new Resource() {
+            @Override
+            public URI getUri() {
+                return uri;
+            }
+
+            @Override
+            public InputStream getInputStream() {
+                return new ByteArrayInputStream(content);
+            }
+        };
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        for (File file : directory.toFile().listFiles()) {
+            Files.delete(file.toPath());
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public String preprocessFeature() throws Throwable {
+        /*The join point is not used by the advice, the original feature is read from the resource*/
+        return aspect.aroundAddLoopTagPointcutScenario(null, resource);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.benchmark;
+
+import com.privalia.qa.specs.CommonG;
+import com.privalia.qa.utils.JsonUtils;
+import io.cucumber.datatable.DataTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Modification of json documents ({@link JsonUtils#modifyDataJson(String, String, DataTable)}) and
+ * evaluation of jsonpath expressions ({@link CommonG#getJSONPathString(String, String, String)})
+ *
+ * @author Jose Fernandez
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int elements;
+
+    private final JsonUtils jsonUtils = new JsonUtils();
+
+    private final CommonG commonG = new CommonG();
+
+    private String json;
+
+    private DataTable modifications;
+
+    @Setup
+    public void setUp() {
+        json = SyntheticData.json(elements);
+        modifications = SyntheticData.jsonModifications();
+    }
+
+    @Benchmark
+    public String modifyDataJson() throws Exception {
+        return jsonUtils.modifyDataJson(json, "json", modifications);
+    }
+
+    @Benchmark
+    public String getJSONPathArray() {
+        return commonG.getJSONPathString(json, "$.items[*].attributes.color", null);
+    }
+
+    @Benchmark
+    public String getJSONPathElement() {
+        return commonG.getJSONPathString(json, "$.items[*].name", "0");
+    }
+
+    @Benchmark
+    public String getJSONPathKeys() {
+        return commonG.getJSONPathString(json, "$.metadata.~", null);
+    }
+}
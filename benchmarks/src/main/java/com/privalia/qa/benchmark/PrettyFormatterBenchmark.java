@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.benchmark;
+
+import com.privalia.qa.aspects.LoopIncludeTagAspect;
+import com.privalia.qa.cucumber.reporter.TestNGPrettyFormatter;
+import io.cucumber.core.options.CommandlineOptionsParser;
+import io.cucumber.core.options.RuntimeOptions;
+import io.cucumber.core.resource.Resource;
+import io.cucumber.core.runtime.Runtime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Output of {@link TestNGPrettyFormatter} while running a feature with the given number of scenarios.
+ * <p>
+ * The feature is run by the cucumber runtime with steps that do nothing, with and without the formatter,
+ * so the overhead of the formatter is the difference between both benchmarks. The output is discarded
+ *
+ * @author Jose Fernandez
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PrettyFormatterBenchmark {
+
+    @Param({"10", "100", "500"})
+    private int scenarios;
+
+    private Path directory;
+
+    private RuntimeOptions options;
+
+    @Setup
+    public void setUp() throws Throwable {
+        System.setProperty("FEATURE_CACHE", "memory");
+        System.setProperty("BENCH_LOOP_LIST", "first,second,third");
+        System.setProperty("BENCH_BACKGROUND", "true");
+
+        directory = Files.createTempDirectory("gingerspec-benchmark");
+        Files.write(directory.resolve("included.feature"), SyntheticData.includedFeature().getBytes(StandardCharsets.UTF_8));
+        Path feature = directory.resolve("synthetic.feature");
+        byte[] content = SyntheticData.feature(scenarios).getBytes(StandardCharsets.UTF_8);
+        Files.write(feature, content);
+
+        /*The aspects are not woven in the benchmarks, so the feature is preprocessed here*/
+        URI uri = feature.toUri();
+        String processed = new LoopIncludeTagAspect().aroundAddLoopTagPointcutScenario(null, new Resource() {
+            @Override
+            public URI getUri() {
+                return uri;
+            }
+
+            @Override
+            public InputStream getInputStream() {
+                return new ByteArrayInputStream(content);
+            }
+        });
+        Files.write(feature, processed.getBytes(StandardCharsets.UTF_8));
+
+        options = new CommandlineOptionsParser(System.out)
+                .parse("--glue", "com.privalia.qa.benchmark.glue", "--plugin", "null_summary", "--monochrome", feature.toString())
+                .setPublishQuiet(true)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        for (File file : directory.toFile().listFiles()) {
+            Files.delete(file.toPath());
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public byte withoutFormatter() {
+        Runtime runtime = Runtime.builder().withRuntimeOptions(options).build();
+        runtime.run();
+        return runtime.exitStatus();
+    }
+
+    @Benchmark
+    public byte withPrettyFormatter() {
+        Runtime runtime = Runtime.builder()
+                .withRuntimeOptions(options)
+                .withAdditionalPlugins(new TestNGPrettyFormatter(new NullOutputStream()))
+                .build();
+        runtime.run();
+        return runtime.exitStatus();
+    }
+
+    /**
+     * Discards all the output
+     */
+    private static final class NullOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.benchmark;
+
+import com.datastax.driver.core.CodecRegistry;
+import com.datastax.driver.core.ColumnDefinitions;
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.privalia.qa.specs.CommonG;
+import com.privalia.qa.utils.FileParserUtils;
+import io.cucumber.datatable.DataTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks of the results of a previous query ({@link CommonG#resultsMustBeCSV(DataTable)} and
+ * {@link CommonG#resultsMustBeCassandra(DataTable)}) and filtering of records
+ * ({@link FileParserUtils#filterRecordThatMatches(List, String, String, String)})
+ *
+ * @author Jose Fernandez
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResultsBenchmark {
+
+    private static final String[] COLUMNS = {"id", "name", "city", "score"};
+
+    @Param({"10", "100", "1000", "10000"})
+    private int records;
+
+    private final CommonG commonG = new CommonG();
+
+    private final FileParserUtils fileParserUtils = new FileParserUtils();
+
+    private List<Map<String, String>> results;
+
+    private DataTable expected;
+
+    private ResultSet cassandraResults;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        results = SyntheticData.records(records);
+        expected = SyntheticData.expectedCities(records);
+        cassandraResults = cassandraResultSet(results);
+        commonG.setCSVResults(results);
+        commonG.setCassandraResults(cassandraResults);
+    }
+
+    @Benchmark
+    public void resultsMustBeCSV() throws Exception {
+        commonG.resultsMustBeCSV(expected);
+    }
+
+    @Benchmark
+    public void resultsMustBeCassandra() throws Exception {
+        commonG.resultsMustBeCassandra(expected);
+    }
+
+    @Benchmark
+    public List<Map<String, String>> filterRecordsEqual() {
+        return fileParserUtils.filterRecordThatMatches(results, "city", "Madrid", "equal");
+    }
+
+    @Benchmark
+    public List<Map<String, String>> filterRecordsContains() {
+        return fileParserUtils.filterRecordThatMatches(results, "name", "name1", "contains");
+    }
+
+    /**
+     * Returns a cassandra result set with the given records. Only the methods used by the
+     * steps are implemented
+     */
+    private static ResultSet cassandraResultSet(List<Map<String, String>> records) throws ReflectiveOperationException {
+        Constructor<ColumnDefinitions.Definition> definitionConstructor = ColumnDefinitions.Definition.class
+                .getDeclaredConstructor(String.class, String.class, String.class, DataType.class);
+        definitionConstructor.setAccessible(true);
+        ColumnDefinitions.Definition[] definitions = new ColumnDefinitions.Definition[COLUMNS.length];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            definitions[i] = definitionConstructor.newInstance("benchmark", "records", COLUMNS[i], DataType.text());
+        }
+        Constructor<ColumnDefinitions> columnsConstructor = ColumnDefinitions.class
+                .getDeclaredConstructor(ColumnDefinitions.Definition[].class, CodecRegistry.class);
+        columnsConstructor.setAccessible(true);
+        ColumnDefinitions columns = columnsConstructor.newInstance(definitions, CodecRegistry.DEFAULT_INSTANCE);
+
+        List<Row> rows = new ArrayList<>(records.size());
+        for (Map<String, String> record : records) {
+            rows.add((Row) Proxy.newProxyInstance(Row.class.getClassLoader(), new Class<?>[]{Row.class}, (proxy, method, args) -> {
+                if ("getObject".equals(method.getName()) && args[0] instanceof Integer) {
+                    return record.get(COLUMNS[(Integer) args[0]]);
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }));
+        }
+
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getColumnDefinitions":
+                    return columns;
+                case "all":
+                    return rows;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.benchmark;
+
+import com.privalia.qa.utils.ThreadProperty;
+import io.cucumber.datatable.DataTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generators of the synthetic inputs used by the benchmarks. All the generators are deterministic,
+ * so the same size always produces the same input
+ *
+ * @author Jose Fernandez
+ */
+public final class SyntheticData {
+
+    private SyntheticData() {
+    }
+
+    /**
+     * Returns a text with the given number of placeholders, resolved from variables, upper/lower
+     * case lookups and math expressions. The variables are stored in {@link ThreadProperty}
+     *
+     * @param placeholders number of placeholders
+     * @return the text
+     */
+    public static String placeholderText(int placeholders) {
+        StringBuilder text = new StringBuilder("Given I send a request to '");
+        for (int i = 0; i < placeholders; i++) {
+            ThreadProperty.set("BENCH_VAR_" + i, "value" + i);
+            switch (i % 4) {
+                case 0:
+                    text.append("/${BENCH_VAR_").append(i).append('}');
+                    break;
+                case 1:
+                    text.append("/${toUpperCase:${BENCH_VAR_").append(i).append("}}");
+                    break;
+                case 2:
+                    text.append("/${math:").append(i).append(" * 2 + 1}");
+                    break;
+                default:
+                    text.append("/${UNDEFINED_").append(i).append(":-default}");
+                    break;
+            }
+        }
+        return text.append("' with body 'plain text'").toString();
+    }
+
+    /**
+     * Returns a feature with the given number of scenarios. One of every three scenarios is
+     * repeated with @loop (over the system property BENCH_LOOP_LIST, that must contain a list
+     * of values) and another one contains a block of steps enclosed in @BACKGROUND(BENCH_BACKGROUND).
+     * Some of the remaining scenarios include a scenario of {@link #includedFeature()}, that must be
+     * stored as included.feature in the same directory
+     *
+     * @param scenarios number of scenarios
+     * @return the feature
+     */
+    public static String feature(int scenarios) {
+        StringBuilder feature = new StringBuilder("Feature: Synthetic feature with ").append(scenarios).append(" scenarios\n");
+        feature.append("  Synthetic feature used by the benchmarks, with ${BENCH_VAR_0} placeholders in the description\n\n");
+        feature.append("  Background:\n");
+        feature.append("    Given I save 'background' in variable 'BACKGROUND'\n\n");
+        for (int i = 0; i < scenarios; i++) {
+            if (i % 3 == 1) {
+                feature.append("  @loop(BENCH_LOOP_LIST,ITEM)\n");
+                feature.append("  Scenario: Loop scenario ").append(i).append(" over <ITEM>\n");
+                feature.append("    Given I save '<ITEM>' in variable 'ITEM_").append(i).append("'\n");
+            } else if (i % 3 == 2) {
+                feature.append("  Scenario: Conditional scenario ").append(i).append('\n');
+                feature.append("  @BACKGROUND(BENCH_BACKGROUND)\n");
+                feature.append("    Given I save 'conditional").append(i).append("' in variable 'COND_").append(i).append("'\n");
+                feature.append("  @/BACKGROUND\n");
+            } else if (i % 10 == 0) {
+                feature.append("  @include(feature:included.feature,scenario:Included scenario)\n");
+                feature.append("  Scenario: Scenario with include ").append(i).append('\n');
+            } else {
+                feature.append("  Scenario: Plain scenario ").append(i).append('\n');
+            }
+            feature.append("    Given I save 'value").append(i).append("' in variable 'VAR_").append(i).append("'\n");
+            feature.append("    Then '${VAR_").append(i).append("}' matches 'value").append(i).append("'\n\n");
+        }
+        return feature.toString();
+    }
+
+    /**
+     * Returns the feature included by the scenarios of {@link #feature(int)}
+     *
+     * @return the feature
+     */
+    public static String includedFeature() {
+        return "Feature: Included feature\n\n"
+                + "  Scenario: Included scenario\n"
+                + "    Given I save 'included' in variable 'INCLUDED'\n"
+                + "    Then '${INCLUDED}' matches 'included'\n\n"
+                + "  Scenario: Another scenario\n"
+                + "    Given I save 'another' in variable 'ANOTHER'\n";
+    }
+
+    /**
+     * Returns a json document with the given number of elements in the "items" array
+     *
+     * @param elements number of elements
+     * @return the json document
+     */
+    public static String json(int elements) {
+        StringBuilder json = new StringBuilder("{\"id\":\"root\",\"name\":\"synthetic\",\"metadata\":{\"count\":")
+                .append(elements).append(",\"tags\":[\"a\",\"b\",\"c\"]},\"items\":[");
+        for (int i = 0; i < elements; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(i).append(",\"name\":\"item").append(i)
+                    .append("\",\"price\":").append(i * 1.5).append(",\"active\":").append(i % 2 == 0)
+                    .append(",\"attributes\":{\"color\":\"color").append(i % 10).append("\",\"size\":").append(i % 5).append("}}");
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Returns the modifications applied to the json document of the benchmarks
+     *
+     * @return datatable with the modifications
+     */
+    public static DataTable jsonModifications() {
+        List<List<String>> raw = new ArrayList<>();
+        raw.add(Arrays.asList("$.name", "UPDATE", "modified"));
+        raw.add(Arrays.asList("$.id", "APPEND", "-suffix"));
+        raw.add(Arrays.asList("$.metadata.owner", "ADD", "benchmark"));
+        raw.add(Arrays.asList("$.metadata.tags", "DELETE", "N/A"));
+        return DataTable.create(raw);
+    }
+
+    /**
+     * Returns a list of records with the columns id, name, city and occurrences-like numeric values,
+     * as the ones returned by a CSV file or a database
+     *
+     * @param records number of records
+     * @return the records
+     */
+    public static List<Map<String, String>> records(int records) {
+        List<Map<String, String>> result = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            Map<String, String> record = new HashMap<>();
+            record.put("id", String.valueOf(i));
+            record.put("name", "name" + i);
+            record.put("city", city(i));
+            record.put("score", String.valueOf(i % 100));
+            result.add(record);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the expected results of the records generated by {@link #records(int)}, in the format
+     * used by the resultsMustBe steps
+     *
+     * @param records number of records
+     * @return datatable with the expected occurrences of each city
+     */
+    public static DataTable expectedCities(int records) {
+        List<List<String>> raw = new ArrayList<>();
+        raw.add(Arrays.asList("city", "occurrences"));
+        for (int i = 0; i < CITIES.length; i++) {
+            int occurrences = records / CITIES.length + (i < records % CITIES.length ? 1 : 0);
+            raw.add(Arrays.asList(CITIES[i], String.valueOf(occurrences)));
+        }
+        return DataTable.create(raw);
+    }
+
+    private static final String[] CITIES = {"Madrid", "Valencia", "Sevilla", "Paris", "Milan"};
+
+    private static String city(int i) {
+        return CITIES[i % CITIES.length];
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.benchmark.glue;
+
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+
+/**
+ * Steps of the features generated by {@link com.privalia.qa.benchmark.PrettyFormatterBenchmark}. They do
+ * nothing, so the benchmark only measures cucumber and the plugins
+ *
+ * @author Jose Fernandez
+ */
+public class BenchmarkSteps {
+
+    @Given("^I save '(.*)' in variable '(.*)'$")
+    public void save(String value, String variable) {
+    }
+
+    @Then("^'(.*)' matches '(.*)'$")
+    public void matches(String value, String expected) {
+    }
+}
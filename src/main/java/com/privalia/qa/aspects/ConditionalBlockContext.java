@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.aspects;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Execution state of the if blocks of a scenario, used by {@link ifStatementAspect}.
+ *
+ * Each opened block is pushed to a stack, so nested blocks are supported: a step is executed
+ * only if all the enclosing blocks are active. The context is bound to the scenario being executed
+ * in the current thread, so scenarios running in parallel do not interfere with each other
+ *
+ * @author Jose Fernandez
+ */
+final class ConditionalBlockContext {
+
+    private static final ThreadLocal<ConditionalBlockContext> CURRENT = new ThreadLocal<>();
+
+    private final Object scenario;
+
+    private final Deque<Boolean> blocks = new ArrayDeque<>();
+
+    private int lastStepLine = -1;
+
+    private boolean lastStepSkipped = false;
+
+    private boolean lastStepIsControl = false;
+
+    private ConditionalBlockContext(Object scenario) {
+        this.scenario = scenario;
+    }
+
+    /**
+     * Returns the context of the given scenario. A new context is created when the
+     * scenario executed in the current thread changes
+     *
+     * @param scenario object that identifies the running scenario
+     * @return the context of the scenario
+     */
+    static ConditionalBlockContext forScenario(Object scenario) {
+        ConditionalBlockContext context = CURRENT.get();
+        if (context == null || context.scenario != scenario) {
+            context = new ConditionalBlockContext(scenario);
+            CURRENT.set(context);
+        }
+        return context;
+    }
+
+    /**
+     * Returns the context of the scenario executed in the current thread
+     *
+     * @return the context, or null if no step was executed yet in this thread
+     */
+    static ConditionalBlockContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Returns true if the steps at the current position should be executed
+     *
+     * @return true if all the opened blocks are active
+     */
+    boolean isActive() {
+        return blocks.isEmpty() || blocks.peek();
+    }
+
+    /**
+     * Opens a new block. The block is active only if the condition is true and the enclosing block is active
+     *
+     * @param condition result of the condition of the block
+     */
+    void openBlock(boolean condition) {
+        blocks.push(condition && isActive());
+    }
+
+    /**
+     * Closes the innermost opened block
+     */
+    void closeBlock() {
+        if (!blocks.isEmpty()) {
+            blocks.pop();
+        }
+    }
+
+    /**
+     * Stores the result of the last step executed, so it can be later reported as skipped
+     *
+     * @param line    line of the step
+     * @param skipped true if the step was not executed
+     * @param control true if the step is an if block step (if/})
+     */
+    void recordStep(int line, boolean skipped, boolean control) {
+        this.lastStepLine = line;
+        this.lastStepSkipped = skipped;
+        this.lastStepIsControl = control;
+    }
+
+    /**
+     * Returns true if the step in the given line was skipped because of an inactive block
+     *
+     * @param line line of the step
+     * @return true if the step was skipped
+     */
+    boolean wasSkipped(int line) {
+        return line == lastStepLine && lastStepSkipped && !lastStepIsControl;
+    }
+}
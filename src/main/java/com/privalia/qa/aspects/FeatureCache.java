@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.aspects;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Cache of the features processed by {@link FeaturePreprocessor}, so the same feature executed by
+ * several runner classes (or in several executions) is not processed again.
+ * <p>
+ * Entries are identified by a hash of the location and the content of the feature, and are only
+ * valid while the files included with @include and the system properties used by the @loop and
+ * @background tags have the same values they had when the feature was processed.
+ * <p>
+ * The cache is configured with the system property FEATURE_CACHE:
+ * <ul>
+ *     <li>memory (default): entries are kept in memory during the execution</li>
+ *     <li>disk: entries are also stored in target/feature-cache, to be reused in the next executions</li>
+ *     <li>none: the cache is disabled</li>
+ * </ul>
+ *
+ * @author Jose Fernandez
+ */
+final class FeatureCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FeatureCache.class);
+
+    private static final int CACHE_SIZE = 1000;
+
+    /**
+     * Version of the preprocessing and of the stored entries, it must be increased every time the
+     * output of {@link FeaturePreprocessor} or the {@link Entry} class change
+     */
+    private static final int FORMAT_VERSION = 2;
+
+    private static final String VERSION = FORMAT_VERSION + ":" + Objects.toString(FeatureCache.class.getPackage().getImplementationVersion(), "");
+
+    private static final File DISK_CACHE_DIR = new File("target", "feature-cache");
+
+    private static final Cache<String, Entry> CACHE = CacheBuilder.newBuilder().maximumSize(CACHE_SIZE).build();
+
+    private FeatureCache() {
+    }
+
+    private static String mode() {
+        return System.getProperty("FEATURE_CACHE", "memory").trim().toLowerCase();
+    }
+
+    /**
+     * Returns the key of the given feature. The key includes the version of the framework, so entries
+     * stored on disk by a different version are not reused
+     *
+     * @param path    directory of the feature
+     * @param content content of the feature
+     * @return key of the feature in the cache
+     */
+    static String key(String path, String content) {
+        return Hashing.sha256().hashString(VERSION + '\0' + path + '\0' + content, StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * Returns the cached result of the feature, if it is still valid
+     *
+     * @param key key of the feature
+     * @return the cached lines, or null if not found or not valid
+     */
+    static List<String> get(String key) {
+        String mode = mode();
+        if ("none".equals(mode)) {
+            return null;
+        }
+
+        Entry entry = CACHE.getIfPresent(key);
+        if (entry == null && "disk".equals(mode)) {
+            entry = readFromDisk(key);
+        }
+
+        if (entry == null || !entry.isValid()) {
+            return null;
+        }
+        CACHE.put(key, entry);
+        return Collections.unmodifiableList(entry.lines);
+    }
+
+    /**
+     * Stores the result of the feature
+     *
+     * @param key           key of the feature
+     * @param lines         processed lines
+     * @param properties    system properties used to process the feature and their values
+     * @param includedFiles files included in the feature
+     */
+    static void put(String key, List<String> lines, Map<String, String> properties, Iterable<String> includedFiles) {
+        String mode = mode();
+        if ("none".equals(mode)) {
+            return;
+        }
+
+        Map<String, FileState> files = new HashMap<>();
+        for (String file : includedFiles) {
+            files.put(file, new FileState(new File(file)));
+        }
+        Entry entry = new Entry(lines, properties, files);
+        CACHE.put(key, entry);
+
+        if ("disk".equals(mode)) {
+            writeToDisk(key, entry);
+        }
+    }
+
+    /**
+     * Removes all the entries kept in memory
+     */
+    static void clear() {
+        CACHE.invalidateAll();
+    }
+
+    private static String hash(File file) {
+        try {
+            return Files.asByteSource(file).hash(Hashing.sha256()).toString();
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    private static Entry readFromDisk(String key) {
+        File file = new File(DISK_CACHE_DIR, key);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(file))) {
+            return (Entry) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            LOGGER.debug("Could not read cached feature {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void writeToDisk(String key, Entry entry) {
+        try {
+            if (!DISK_CACHE_DIR.isDirectory() && !DISK_CACHE_DIR.mkdirs()) {
+                return;
+            }
+            File tmp = File.createTempFile(key, ".tmp", DISK_CACHE_DIR);
+            try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(tmp))) {
+                out.writeObject(entry);
+            }
+            Files.move(tmp, new File(DISK_CACHE_DIR, key));
+        } catch (IOException e) {
+            LOGGER.debug("Could not store cached feature {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Processed feature and the values it depends on
+     */
+    private static final class Entry implements Serializable {
+
+        private static final long serialVersionUID = 2L;
+
+        private final ArrayList<String> lines;
+
+        private final HashMap<String, String> properties;
+
+        private final HashMap<String, FileState> files;
+
+        Entry(List<String> lines, Map<String, String> properties, Map<String, FileState> files) {
+            this.lines = new ArrayList<>(lines);
+            this.properties = new HashMap<>(properties);
+            this.files = new HashMap<>(files);
+        }
+
+        boolean isValid() {
+            for (Map.Entry<String, String> property : properties.entrySet()) {
+                if (!Objects.equals(System.getProperty(property.getKey()), property.getValue())) {
+                    return false;
+                }
+            }
+            for (Map.Entry<String, FileState> file : files.entrySet()) {
+                if (!file.getValue().matches(new File(file.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Size, modification time and hash of an included file. The file is only hashed again when its
+     * modification time changes but its size does not
+     */
+    private static final class FileState implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long length;
+
+        private final String hash;
+
+        private volatile long lastModified;
+
+        FileState(File file) {
+            this.length = file.length();
+            this.lastModified = file.lastModified();
+            this.hash = hash(file);
+        }
+
+        boolean matches(File file) {
+            long modified = file.lastModified();
+            if (file.length() != length) {
+                return false;
+            }
+            if (modified == lastModified) {
+                return true;
+            }
+            if (!hash(file).equals(hash)) {
+                return false;
+            }
+            lastModified = modified;
+            return true;
+        }
+    }
+}
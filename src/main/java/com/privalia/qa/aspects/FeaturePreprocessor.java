@@ -0,0 +1,423 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.aspects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static com.privalia.qa.aspects.ReplacementAspect.replacePlaceholders;
+
+/**
+ * Single pass preprocessor of the feature files, used by {@link LoopIncludeTagAspect}.
+ * <p>
+ * The lines of the feature are read only once and pushed through a chain of stages, each one
+ * keeping only the state it needs (at most, the lines between an @include tag and the header it
+ * applies to):
+ * <ol>
+ *     <li>@loop and @background tags</li>
+ *     <li>@include tags</li>
+ *     <li>Initial variable replacements</li>
+ * </ol>
+ * The output of each stage is the same as the one of the former list based implementation
+ *
+ * @author Jose Fernandez
+ */
+final class FeaturePreprocessor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FeaturePreprocessor.class);
+
+    private static final Pattern LOOP_TAG = Pattern.compile("\\s*@LOOP.*");
+
+    private static final Pattern BACKGROUND_TAG = Pattern.compile("\\s*@BACKGROUND.*");
+
+    private static final Pattern ANY_TAG = Pattern.compile(".*@[^\\{].*");
+
+    private static final Pattern INCLUDE_TAG = Pattern.compile("\\s*@include.*");
+
+    private static final Pattern HEADER = Pattern.compile("\\s*(Scenario|Scenario Outline|Background|Rule):.*");
+
+    private final LoopIncludeTagAspect includes;
+
+    private final String path;
+
+    /**
+     * System properties read while processing the feature
+     */
+    private final Map<String, String> usedProperties = new HashMap<>();
+
+    /**
+     * Files included with @include
+     */
+    private final Set<String> includedFiles = new LinkedHashSet<>();
+
+    /**
+     * Default constructor
+     *
+     * @param includes aspect used to resolve the @include tags
+     * @param path     directory of the feature file, used to locate the included features
+     */
+    FeaturePreprocessor(LoopIncludeTagAspect includes, String path) {
+        this.includes = includes;
+        this.path = path;
+    }
+
+    /**
+     * Processes the whole feature.
+     * <p>
+     * The result of the @loop, @background and @include stages is taken from {@link FeatureCache} when
+     * possible. The initial replacements are always done, since they can depend on values that change
+     * during the execution
+     *
+     * @param content content of the feature file
+     * @return the processed feature
+     * @throws Exception if the feature could not be read or an @include tag is not valid
+     */
+    String process(String content) throws Exception {
+        String key = FeatureCache.key(path, content);
+        List<String> lines = FeatureCache.get(key);
+
+        if (lines == null) {
+            lines = new ArrayList<>();
+            Stage stages = new TagStage(new IncludeStage(collect(lines)));
+            BufferedReader reader = new BufferedReader(new StringReader(content));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                stages.accept(line);
+            }
+            stages.finish();
+            FeatureCache.put(key, lines, usedProperties, includedFiles);
+        }
+
+        StringBuilder output = new StringBuilder();
+        Stage replacements = new ReplacementStage(output);
+        for (String line : lines) {
+            replacements.accept(line);
+        }
+        replacements.finish();
+        return output.toString();
+    }
+
+    /**
+     * Resolves only the @include tags of the given lines
+     *
+     * @param lines lines of the feature
+     * @return the processed lines
+     * @throws Exception if an @include tag is not valid
+     */
+    List<String> processIncludes(List<String> lines) throws Exception {
+        List<String> output = new ArrayList<>();
+        Stage stage = new IncludeStage(collect(output));
+        for (String line : lines) {
+            stage.accept(line);
+        }
+        stage.finish();
+        return output;
+    }
+
+    private static Stage collect(List<String> output) {
+        return new Stage() {
+            @Override
+            public void accept(String line) {
+                output.add(line);
+            }
+
+            @Override
+            public void finish() {
+            }
+        };
+    }
+
+    /**
+     * Returns the value of the system property, registering it as a dependency of the feature
+     */
+    private String getProperty(String name) {
+        String value = System.getProperty(name);
+        usedProperties.put(name, value);
+        return value;
+    }
+
+    private static String tagParams(String line) {
+        return line.substring((line.lastIndexOf("(") + 1), (line.length()) - 1);
+    }
+
+    /**
+     * Step of the preprocessing. Each stage receives the lines one by one and pushes its output to the next one
+     */
+    private interface Stage {
+
+        void accept(String line) throws Exception;
+
+        void finish() throws Exception;
+    }
+
+    private enum State { NORMAL, LOOP_SCENARIO, LOOP_STEPS, BACKGROUND_KEEP, BACKGROUND_DROP }
+
+    /**
+     * Handles the @loop and @background tags
+     */
+    private final class TagStage implements Stage {
+
+        private final Stage next;
+
+        private State state = State.NORMAL;
+
+        private String loopName;
+
+        private String[] loopValues;
+
+        TagStage(Stage next) {
+            this.next = next;
+        }
+
+        @Override
+        public void accept(String line) throws Exception {
+            String upper = line.toUpperCase();
+
+            switch (state) {
+                case LOOP_SCENARIO:
+                    if (upper.contains("SCENARIO:")) {
+                        next.accept(line.replaceAll("Scenario", "Scenario Outline"));
+                        state = State.LOOP_STEPS;
+                    } else {
+                        next.accept(line);
+                    }
+                    return;
+                case LOOP_STEPS:
+                    if (!upper.contains("SCENARIO") && !ANY_TAG.matcher(line).matches()) {
+                        next.accept(line);
+                        return;
+                    }
+                    /*End of the scenario, the line is processed as any other line*/
+                    writeExamples();
+                    state = State.NORMAL;
+                    break;
+                case BACKGROUND_KEEP:
+                    if (upper.contains("/BACKGROUND")) {
+                        state = State.NORMAL;
+                    } else {
+                        next.accept(line);
+                    }
+                    return;
+                case BACKGROUND_DROP:
+                    if (!upper.contains("SCENARIO") && !ANY_TAG.matcher(line).matches() && !upper.contains("/BACKGROUND")) {
+                        return;
+                    }
+                    state = State.NORMAL;
+                    if (!upper.contains("@/BACKGROUND")) {
+                        next.accept(line);
+                    }
+                    return;
+                default:
+                    break;
+            }
+
+            if (LOOP_TAG.matcher(upper).matches()) {
+                String[] params = tagParams(line).split(",");
+                try {
+                    loopValues = getProperty(params[0]).split(",");
+                } catch (Exception e) {
+                    LOGGER.debug("-> {} is not defined. Exception captured till scenario execution.", params[0]);
+                    loopValues = "error,error".split(",");
+                }
+                loopName = params[1];
+                next.accept(" ");
+                state = State.LOOP_SCENARIO;
+            } else if (BACKGROUND_TAG.matcher(upper).matches()) {
+                state = getProperty(tagParams(line)) != null ? State.BACKGROUND_KEEP : State.BACKGROUND_DROP;
+            } else {
+                next.accept(line);
+            }
+        }
+
+        @Override
+        public void finish() throws Exception {
+            if (state == State.LOOP_STEPS) {
+                writeExamples();
+            }
+            next.finish();
+        }
+
+        private void writeExamples() throws Exception {
+            next.accept("Examples:");
+            next.accept("| " + loopName + " | " + loopName + ".id |");
+            for (int i = 0; i < loopValues.length; i++) {
+                next.accept("| " + loopValues[i] + " | " + i + " |");
+            }
+        }
+    }
+
+    /**
+     * Handles the @include tags. The included steps are placed after the next Scenario header (or as
+     * a Background if the tags are placed before the Feature header), and the header is moved to the
+     * position of the tags
+     */
+    private final class IncludeStage implements Stage {
+
+        private final Stage next;
+
+        /**
+         * Lines pending to be processed. The lines found between the tags and the header are processed again
+         */
+        private final Deque<String> pending = new ArrayDeque<>();
+
+        private final List<String> between = new ArrayList<>();
+
+        private StringBuilder included;
+
+        private int includeCount;
+
+        private boolean inBlock = false;
+
+        private boolean seekingHeader = false;
+
+        IncludeStage(Stage next) {
+            this.next = next;
+        }
+
+        @Override
+        public void accept(String line) throws Exception {
+            pending.add(line);
+            drain();
+        }
+
+        @Override
+        public void finish() throws Exception {
+            if (inBlock || seekingHeader) {
+                /*No header found after the tags, the included steps are discarded*/
+                inBlock = false;
+                seekingHeader = false;
+                for (int i = 0; i < includeCount; i++) {
+                    next.accept("");
+                }
+                pending.addAll(between);
+                between.clear();
+                drain();
+            }
+            next.finish();
+        }
+
+        private void drain() throws Exception {
+            while (!pending.isEmpty()) {
+                String line = pending.poll();
+
+                if (inBlock) {
+                    if (line.contains("@include")) {
+                        include(line);
+                        continue;
+                    }
+                    inBlock = false;
+                    seekingHeader = true;
+                }
+
+                if (seekingHeader) {
+                    seekHeader(line);
+                } else if (INCLUDE_TAG.matcher(line).matches()) {
+                    included = new StringBuilder();
+                    includeCount = 0;
+                    inBlock = true;
+                    include(line);
+                } else {
+                    next.accept(line);
+                }
+            }
+        }
+
+        private void include(String line) throws Exception {
+            includeCount++;
+            String feature = path + includes.getFeatureName(line);
+            includedFiles.add(feature);
+            included.append(includes.featureStepConverter(feature, includes.getScenName(line), includes.getParams(line)));
+        }
+
+        private void seekHeader(String line) throws Exception {
+            String upper = line.toUpperCase();
+            boolean feature = upper.contains("FEATURE:") && !upper.contains("@INCLUDE");
+            boolean scenario = (upper.contains("SCENARIO:") || upper.contains("OUTLINE:")) && !upper.contains("@INCLUDE");
+
+            if (!feature && !scenario) {
+                between.add(line);
+                return;
+            }
+
+            seekingHeader = false;
+            next.accept(line);
+            for (int i = 1; i < includeCount; i++) {
+                next.accept("");
+            }
+
+            pending.addFirst(feature ? "\nBackground:\n" + included : included.toString());
+            for (int i = between.size() - 1; i >= 0; i--) {
+                pending.addFirst(between.get(i));
+            }
+            between.clear();
+        }
+    }
+
+    /**
+     * Starts by doing variable replacement on each line of the feature file
+     * as soon as it finds a line that starts with the keyword "Scenario", "Scenario Outline:"
+     * "Background:" or "Rule", it switches to changing only the lines with that keyword.
+     * This is to not do variable replacements on the steps.
+     *
+     * The reason for this is because the steps may contain variables that do not yet
+     * exists (ThreadProperty variables), and this could bring unexpected replacements
+     * like ${toUpperCase:${myvar}} -> ${MYVAR}
+     */
+    private static final class ReplacementStage implements Stage {
+
+        private final StringBuilder output;
+
+        private boolean firstLine = true;
+
+        private boolean scenarioFound = false;
+
+        ReplacementStage(StringBuilder output) {
+            this.output = output;
+        }
+
+        @Override
+        public void accept(String line) throws Exception {
+            boolean header = HEADER.matcher(line).matches();
+            if (header || !scenarioFound) {
+                line = replacePlaceholders(line, false);
+            }
+            scenarioFound |= header;
+
+            if (!firstLine) {
+                output.append('\n');
+            }
+            output.append(line);
+            firstLine = false;
+        }
+
+        @Override
+        public void finish() {
+        }
+    }
+}
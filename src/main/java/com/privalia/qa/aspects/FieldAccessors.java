@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.aspects;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cached accessors for the private fields of the cucumber classes modified by the aspects.
+ *
+ * The aspects are executed for every step, so instead of calling getDeclaredField/setAccessible
+ * each time, the fields are resolved only once per class and kept as {@link MethodHandle}s
+ *
+ * @author Jose Fernandez
+ */
+final class FieldAccessors {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final ClassValue<ConcurrentMap<String, MethodHandle>> GETTERS = new ClassValue<ConcurrentMap<String, MethodHandle>>() {
+        @Override
+        protected ConcurrentMap<String, MethodHandle> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static final ClassValue<ConcurrentMap<String, MethodHandle>> SETTERS = new ClassValue<ConcurrentMap<String, MethodHandle>>() {
+        @Override
+        protected ConcurrentMap<String, MethodHandle> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private FieldAccessors() {
+    }
+
+    /**
+     * Returns the value of the given field of the object. The field can be declared in
+     * the class of the object or in any of its superclasses
+     *
+     * @param target    object
+     * @param fieldName name of the field
+     * @param <T>       type of the field
+     * @return value of the field
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T get(Object target, String fieldName) {
+        MethodHandle getter = GETTERS.get(target.getClass()).computeIfAbsent(fieldName, name -> resolve(target.getClass(), name, false));
+        try {
+            return (T) (Object) getter.invokeExact(target);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not read field " + fieldName + " of " + target.getClass().getName(), e);
+        }
+    }
+
+    /**
+     * Sets the value of the given field of the object
+     *
+     * @param target    object
+     * @param fieldName name of the field
+     * @param value     new value
+     */
+    static void set(Object target, String fieldName, Object value) {
+        MethodHandle setter = SETTERS.get(target.getClass()).computeIfAbsent(fieldName, name -> resolve(target.getClass(), name, true));
+        try {
+            setter.invokeExact(target, value);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not write field " + fieldName + " of " + target.getClass().getName(), e);
+        }
+    }
+
+    private static MethodHandle resolve(Class<?> type, String fieldName, boolean setter) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            try {
+                Field field = current.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                return setter ? lookup.unreflectSetter(field).asType(SETTER_TYPE) : lookup.unreflectGetter(field).asType(GETTER_TYPE);
+            } catch (NoSuchFieldException e) {
+                continue;
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Could not access field " + fieldName + " of " + type.getName(), e);
+            }
+        }
+        throw new IllegalStateException("Field " + fieldName + " not found in " + type.getName());
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.aspects;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Index of the features referenced by @include tags, used by {@link LoopIncludeTagAspect}.
+ * <p>
+ * Each included feature is read only once per execution (or again if the file is modified), and
+ * the steps of each scenario are extracted the first time the scenario is included. Next inclusions
+ * of the same scenario, with or without parameters, are served from the index
+ *
+ * @author Jose Fernandez
+ */
+final class IncludedFeatureIndex {
+
+    private static final ConcurrentMap<String, IncludedFeatureIndex> FEATURES = new ConcurrentHashMap<>();
+
+    private final long lastModified;
+
+    private final List<String> lines;
+
+    private final ConcurrentMap<String, IncludedScenario> scenarios = new ConcurrentHashMap<>();
+
+    private IncludedFeatureIndex(long lastModified, List<String> lines) {
+        this.lastModified = lastModified;
+        this.lines = lines;
+    }
+
+    /**
+     * Returns the index of the given feature file
+     *
+     * @param feature path of the feature
+     * @return index of the feature
+     * @throws FileNotFoundException if the feature does not exist
+     * @throws IOException           if the feature could not be read
+     */
+    static IncludedFeatureIndex forFeature(String feature) throws IOException {
+        File file = new File(feature);
+        if (!file.isFile()) {
+            FEATURES.remove(feature);
+            throw new FileNotFoundException(feature);
+        }
+
+        IncludedFeatureIndex index = FEATURES.get(feature);
+        if (index == null || index.lastModified != file.lastModified()) {
+            long modified = file.lastModified();
+            index = new IncludedFeatureIndex(modified, Collections.unmodifiableList(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)));
+            FEATURES.put(feature, index);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the steps of the scenarios of the feature whose name contains the given text
+     *
+     * @param scenarioName name of the scenario
+     * @return the included scenario
+     */
+    IncludedScenario scenario(String scenarioName) {
+        return scenarios.computeIfAbsent(scenarioName, this::extract);
+    }
+
+    private IncludedScenario extract(String scenarioName) {
+        boolean exists = false;
+        boolean outline = false;
+        List<String> paramLines = new ArrayList<>();
+        StringBuilder steps = new StringBuilder();
+
+        int i = 0;
+        while (i < lines.size()) {
+            String line = lines.get(i++);
+            if (!line.contains(scenarioName)) {
+                continue;
+            }
+            exists = true;
+            String upper = line.toUpperCase();
+
+            if (upper.contains("OUTLINE")) {
+                outline = true;
+                /*The examples are replaced by the parameters of the tag*/
+                while (i < lines.size()) {
+                    String paramLine = lines.get(i++);
+                    if (paramLine.toUpperCase().contains("SCENARIO")) {
+                        break;
+                    }
+                    if (paramLine.contains("|")) {
+                        paramLines.add(paramLine);
+                    } else if (!paramLine.toUpperCase().contains("EXAMPLES:")) {
+                        steps.append(paramLine).append("\n");
+                    }
+                }
+            } else if (upper.contains("SCENARIO:")) {
+                while (i < lines.size()) {
+                    String stepLine = lines.get(i++);
+                    if (stepLine.toUpperCase().contains("SCENARIO:") || stepLine.toUpperCase().contains("EXAMPLES:")) {
+                        break;
+                    }
+                    steps.append(stepLine).append("\n");
+                }
+            }
+        }
+
+        return new IncludedScenario(exists, outline, Collections.unmodifiableList(paramLines), steps.toString());
+    }
+
+    /**
+     * Steps of an included scenario, before the parameters of the tag are applied
+     */
+    static final class IncludedScenario {
+
+        private final boolean exists;
+
+        private final boolean outline;
+
+        private final List<String> paramLines;
+
+        private final String steps;
+
+        IncludedScenario(boolean exists, boolean outline, List<String> paramLines, String steps) {
+            this.exists = exists;
+            this.outline = outline;
+            this.paramLines = paramLines;
+            this.steps = steps;
+        }
+
+        boolean exists() {
+            return exists;
+        }
+
+        boolean isOutline() {
+            return outline;
+        }
+
+        /**
+         * @return lines of the examples of the scenario outline, used to validate the number of parameters
+         */
+        List<String> getParamLines() {
+            return paramLines;
+        }
+
+        String getSteps() {
+            return steps;
+        }
+    }
+}
@@ -16,22 +16,18 @@
 
 package com.privalia.qa.aspects;
 
+import com.google.common.io.CharStreams;
 import com.privalia.qa.exceptions.IncludeException;
-import com.privalia.qa.exceptions.NonReplaceableException;
 import io.cucumber.core.resource.Resource;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.io.*;
-import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
-import static com.privalia.qa.aspects.ReplacementAspect.replacePlaceholders;
-
 /**
  * Aspect for managing the @include, @background and @loop tags. This particulars tags must be handled right
  * after the feature file is read
@@ -41,9 +37,6 @@ import static com.privalia.qa.aspects.ReplacementAspect.replacePlaceholders;
 @Aspect
 public class LoopIncludeTagAspect {
 
-    private final Logger logger = LoggerFactory.getLogger(this.getClass().getCanonicalName());
-
-
     /**
      * Pointcut is executed for {@link io.cucumber.core.feature.FeatureParser#read(Resource)}
      * @param resource     the resource
@@ -54,6 +47,9 @@ public class LoopIncludeTagAspect {
 
     /**
      * Around add loop tag pointcut scenario string.
+     * <p>
+     * The feature is processed in a single pass by {@link FeaturePreprocessor}, and the result is cached
+     * (see {@link FeatureCache})
      *
      * @param pjp      the pjp
      * @param resource resource containing feature
@@ -63,101 +59,17 @@ public class LoopIncludeTagAspect {
     @Around(value = "featureBuilderRead(resource)")
     public String aroundAddLoopTagPointcutScenario(ProceedingJoinPoint pjp, Resource resource) throws Throwable {
 
-        BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream()));
-        List<String> lines = new ArrayList<>();
-
-        while (reader.ready()) {
-            lines.add(reader.readLine());
-        }
-
-        String listParams;
-        String paramReplace;
         String path = resource.getUri().getPath();
         int endIndex = path.lastIndexOf("/") + 1;
         path = path.substring(0, endIndex);
 
-        for (int s = 0; s < lines.size(); s++) {
-            String[] elems;
-            if (lines.get(s).toUpperCase().matches("\\s*@LOOP.*")) {
-                listParams = lines.get(s).substring((lines.get(s).lastIndexOf("(") + 1), (lines.get(s).length()) - 1).split(",")[0];
-                try {
-                    elems = System.getProperty(listParams).split(",");
-                } catch (Exception e) {
-                    logger.debug("-> {} is not defined. Exception captured till scenario execution.", listParams);
-                    elems = "error,error".split(",");
-                }
-                paramReplace = lines.get(s).substring((lines.get(s).lastIndexOf("(") + 1), (lines.get(s).length()) - 1).split(",")[1];
-                lines.set(s, " ");
-                while (!(lines.get(s).toUpperCase().contains("SCENARIO:"))) {
-                    s++;
-                }
-                lines.set(s, lines.get(s).replaceAll("Scenario", "Scenario Outline"));
-                s++;
-                while (s < lines.size()) {
-                    if ((lines.get(s).toUpperCase().contains("SCENARIO")) || lines.get(s).matches(".*@[^\\{].*")) {
-                        break;
-                    }
-                    s++;
-                }
-                lines.add(s, "Examples:");
-                exampleLines(paramReplace, elems, lines,  s + 1);
-                s = s + elems.length;
-            }
-            if (lines.get(s).toUpperCase().matches("\\s*@BACKGROUND.*")) {
-                listParams = lines.get(s).substring((lines.get(s).lastIndexOf("(") + 1), (lines.get(s).length()) - 1);
-                if (System.getProperty(listParams) != null) {
-                    lines.remove(s);
-                    while (!lines.get(s).toUpperCase().contains("/BACKGROUND")) {
-                        s++;
-                    }
-                    lines.remove(s--);
-                } else {
-                    lines.remove(s);
-                    while (!lines.get(s).toUpperCase().contains("SCENARIO") && !lines.get(s).matches(".*@[^\\{].*") && !lines.get(s).toUpperCase().contains("/BACKGROUND")) {
-                        lines.remove(s);
-                    }
-                    if (lines.get(s).toUpperCase().contains("@/BACKGROUND")) {
-                        lines.remove(s--);
-                    }
-                }
-            }
-        }
-        parseLines(lines, path);
-
-        /* Perform any possible replacement to the file from the start */
-        this.initialReplacements(lines);
-
-        return String.join("\n", lines);
-
-    }
-
-    /**
-     * Starts by doing variable replacement on each line of the feature file
-     * as soon as it finds a line that starts with the keyword "Scenario", "Scenario Outline:"
-     * "Background:" or "Rule", it switches to changing only the lines with that keyword.
-     * This is to not do variable replacements on the steps.
-     *
-     * The reason for this is because the steps may contain variables that do not yet
-     * exists (ThreadProperty variables), and this could bring unexpected replacements
-     * like ${toUpperCase:${myvar}} -> ${MYVAR}
-     */
-    private List<String> initialReplacements(List<String> lines) throws NonReplaceableException {
-        boolean stop = false;
-        for (int s = 0; s < lines.size(); s++) {
-            String debug = lines.get(s);
-            if (lines.get(s).matches("\\s*Scenario:.*") || lines.get(s).matches("\\s*Scenario Outline:.*") || lines.get(s).matches("\\s*Background:.*") || lines.get(s).matches("\\s*Rule:.*")) {
-                lines.set(s, replacePlaceholders(lines.get(s), false));
-                stop = true;
-            }
-
-            if (!stop) {
-                lines.set(s, replacePlaceholders(lines.get(s), false));
-            }
+        String content;
+        try (Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+            content = CharStreams.toString(reader);
         }
-        return lines;
+        return new FeaturePreprocessor(this, path).process(content);
     }
 
-
     public void exampleLines (String name, String[] params, List<String> lines, int num) {
         lines.add(num, "| " + name + " | " + name + ".id |");
         for (int i = 0; i < params.length; i++) {
@@ -166,58 +78,32 @@ public class LoopIncludeTagAspect {
         }
     }
 
-
+    /**
+     * Resolves the @include tags of the given lines. The list is modified with the result
+     *
+     * @param lines lines of the feature
+     * @param path  directory of the feature
+     * @return the resulting feature
+     * @throws IncludeException if any of the @include tags is not valid
+     */
     public String parseLines(List<String> lines, String path) throws IncludeException {
-        String featureName;
-        String scenarioName;
-        String[] params;
-        boolean marked = false;
-        String nwsource = "";
-
-
-        for (int lineOriginalFeature = 0; lineOriginalFeature < lines.size(); lineOriginalFeature++) {
-            if (lines.get(lineOriginalFeature).matches("\\s*@include.*")) {
-                String lineToinclude = "";
-                for (int linesWithInclude = lineOriginalFeature; linesWithInclude < lines.size() && lines.get(linesWithInclude).contains("@include"); linesWithInclude++) {
-                    featureName = getFeatureName(lines.get(linesWithInclude));
-                    scenarioName = getScenName(lines.get(linesWithInclude));
-                    params = getParams(lines.get(linesWithInclude));
-                    lines.set(linesWithInclude, "");
-                    lineToinclude += featureStepConverter(path + featureName, scenarioName, params);
-                }
+        List<String> result;
+        try {
+            result = new FeaturePreprocessor(this, path).processIncludes(lines);
+        } catch (IncludeException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IncludeException(e.getMessage(), e);
+        }
 
-                //TODO: Simplify code
-                for (int lineAfterInclude = lineOriginalFeature; lineAfterInclude < lines.size(); lineAfterInclude++) {
-                    if (lines.get(lineAfterInclude).toUpperCase().contains("FEATURE:") && !lines.get(lineAfterInclude).toUpperCase().contains("@INCLUDE")) {
-                        for (int indexForBackground = lineAfterInclude; indexForBackground < lines.size(); indexForBackground++) {
-                            if (lines.get(lineAfterInclude).toUpperCase().contains("BACKGROUND:") && !marked) {
-                                lines.set(lineOriginalFeature, lines.get(lineAfterInclude));
-                                lines.set(lineAfterInclude, lines.get(indexForBackground));
-                                lines.set(indexForBackground, lineToinclude);
-                                marked = true;
-                                lineToinclude = "";
-                                break;
-                            }
-                        }
-                        if (!marked) {
-                            lines.set(lineOriginalFeature, lines.get(lineAfterInclude));
-                            lines.set(lineAfterInclude, "\nBackground:\n" + lineToinclude);
-                            lineToinclude = "";
-                            break;
-                        }
-                    }
-                    if ((lines.get(lineAfterInclude).toUpperCase().contains("SCENARIO:") || lines.get(lineAfterInclude).toUpperCase().contains("OUTLINE:")) && !lines.get(lineAfterInclude).toUpperCase().contains("@INCLUDE")) {
-                        lines.set(lineOriginalFeature, lines.get(lineAfterInclude));
-                        lines.set(lineAfterInclude, lineToinclude);
-                        lineToinclude = "";
-                        break;
-                    }
-                }
+        lines.clear();
+        lines.addAll(result);
 
-            }
-            nwsource += lines.get(lineOriginalFeature) + "\n";
+        StringBuilder nwsource = new StringBuilder();
+        for (String line : lines) {
+            nwsource.append(line).append("\n");
         }
-        return nwsource;
+        return nwsource.toString();
     }
 
     /**
@@ -271,58 +157,43 @@ public class LoopIncludeTagAspect {
         return parsedFeature;
     }
 
+    /**
+     * Returns the steps of the given scenario of the included feature. The feature is parsed only once
+     * (see {@link IncludedFeatureIndex})
+     *
+     * @param feature      path of the included feature
+     * @param scenarioName name of the scenario to include
+     * @param params       parameters of the tag (pairs of key and value), if the scenario is a scenario outline
+     * @return the steps of the scenario
+     * @throws IncludeException if the feature or the scenario are not found, or the parameters are not valid
+     */
     public String featureStepConverter(String feature, String scenarioName, String[] params) throws IncludeException {
-        boolean scenarioexists = false;
-        BufferedReader bufferedFeature = null;
-        String parsedFeature = "";
-        String sCurrentLine;
-
+        IncludedFeatureIndex.IncludedScenario scenario;
 
         try {
-
-            bufferedFeature = new BufferedReader(new FileReader(feature));
-            while ((sCurrentLine = bufferedFeature.readLine()) != null) {
-                if (sCurrentLine.contains(scenarioName)) {
-                    scenarioexists = true;
-                    if (sCurrentLine.toUpperCase().contains("OUTLINE") && params == null) {
-                        throw new IncludeException("->  Parameters were not given for this scenario outline.");
-                    } else if (sCurrentLine.toUpperCase().contains("OUTLINE")) {
-                        BufferedReader auxBufferedFeature = bufferedFeature;
-                        String sParamline;
-                        while ((sParamline = auxBufferedFeature.readLine()) != null && !sParamline.toUpperCase().contains("SCENARIO")) {
-                            if (sParamline.contains("|")) {
-                                if (!checkParams(sParamline, params)) {
-                                    throw new IncludeException("-> Wrong number of parameters.");
-                                }
-                            } else if (!sParamline.toUpperCase().contains("EXAMPLES:")) {
-                                parsedFeature = parsedFeature + sParamline + "\n";
-                            }
-                        }
-                    } else if (!sCurrentLine.toUpperCase().contains("OUTLINE") && sCurrentLine.toUpperCase().contains("SCENARIO:")) {
-                        while ((sCurrentLine = bufferedFeature.readLine()) != null && !sCurrentLine.toUpperCase().contains("SCENARIO:") && !sCurrentLine.toUpperCase().contains("EXAMPLES:")) {
-                            parsedFeature = parsedFeature + sCurrentLine + "\n";
-                        }
-                    }
-                }
-            }
-            if (!scenarioexists) {
-                throw new IncludeException("-> Scenario not present at the given feature: " + scenarioName);
-            }
-
+            scenario = IncludedFeatureIndex.forFeature(feature).scenario(scenarioName);
         } catch (FileNotFoundException e) {
             throw new IncludeException("-> Feature file were not found: " + feature);
         } catch (IOException e) {
             throw new IncludeException("-> An I/O error appeared.");
-        } finally {
-            try {
-                if (bufferedFeature != null) {
-                    bufferedFeature.close();
+        }
+
+        if (!scenario.exists()) {
+            throw new IncludeException("-> Scenario not present at the given feature: " + scenarioName);
+        }
+
+        if (scenario.isOutline()) {
+            if (params == null) {
+                throw new IncludeException("->  Parameters were not given for this scenario outline.");
+            }
+            for (String paramLine : scenario.getParamLines()) {
+                if (!checkParams(paramLine, params)) {
+                    throw new IncludeException("-> Wrong number of parameters.");
                 }
-            } catch (IOException ex) {
-                ex.printStackTrace();
             }
         }
 
+        String parsedFeature = scenario.getSteps();
         if (params != null) {
             parsedFeature = doReplaceKeys(parsedFeature, params);
         }
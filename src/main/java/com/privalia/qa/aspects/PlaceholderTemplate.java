@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.aspects;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import org.apache.commons.text.lookup.StringLookup;
+
+/**
+ * Pre-parsed version of a text with placeholders (${VAR}).
+ * <p>
+ * The text is split only once in literal segments and variable references, so rendering the template
+ * only requires to resolve the variables. The rules are the same ones used by
+ * {@link org.apache.commons.text.StringSubstitutor} as configured in {@link ReplacementAspect}: nested
+ * variables (${toUpperCase:${VAR}}), default values (${VAR:-default}), escaping ($${VAR}) and recursive
+ * replacement of the resolved values.
+ * <p>
+ * Templates are cached by their text in a bounded cache, see {@link #of(String)}
+ *
+ * @author Jose Fernandez
+ */
+final class PlaceholderTemplate {
+
+    private static final String PREFIX = "${";
+
+    private static final char SUFFIX = '}';
+
+    private static final char ESCAPE = '$';
+
+    private static final String VALUE_DELIMITER = ":-";
+
+    /**
+     * Maximum amount of characters kept in the cache
+     */
+    private static final long CACHE_WEIGHT = 10_000_000L;
+
+    private static final Cache<String, PlaceholderTemplate> CACHE = CacheBuilder.newBuilder()
+            .maximumWeight(CACHE_WEIGHT)
+            .weigher((String key, PlaceholderTemplate value) -> key.length())
+            .build();
+
+    private final String source;
+
+    private final List<Object> segments;
+
+    /**
+     * Result of the template when it does not contain variables (i.e. only escaped ones)
+     */
+    private final String constant;
+
+    private PlaceholderTemplate(String source, List<Object> segments) {
+        this.source = source;
+        this.segments = segments;
+        this.constant = segments.stream().anyMatch(segment -> segment instanceof Variable)
+                ? null : segments.stream().map(String.class::cast).collect(Collectors.joining());
+    }
+
+    /**
+     * Returns the template for the given text, parsing it if it was not found in the cache
+     *
+     * @param text text with placeholders
+     * @return parsed template
+     */
+    static PlaceholderTemplate of(String text) {
+        try {
+            return CACHE.get(text, () -> parse(text));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Replaces the variables of the template using the given lookup
+     *
+     * @param lookup                   lookup used to resolve the variables
+     * @param failOnUndefinedVariables if true, an {@link IllegalArgumentException} is thrown when a variable
+     *                                 can not be resolved. Otherwise, the variable is left as it is
+     * @return the text with all the variables replaced. As with {@link org.apache.commons.text.StringSubstitutor},
+     * the same instance is returned if nothing was replaced
+     */
+    String render(StringLookup lookup, boolean failOnUndefinedVariables) {
+        List<String> priorVariables = new ArrayList<>();
+        priorVariables.add(source);
+        String result = render(lookup, failOnUndefinedVariables, priorVariables);
+        return result.equals(source) ? source : result;
+    }
+
+    private String render(StringLookup lookup, boolean failOnUndefinedVariables, List<String> priorVariables) {
+        if (constant != null) {
+            return constant;
+        }
+        StringBuilder sb = new StringBuilder(source.length() + 16);
+        for (Object segment : segments) {
+            if (segment instanceof String) {
+                sb.append((String) segment);
+            } else {
+                sb.append(((Variable) segment).resolve(lookup, failOnUndefinedVariables, priorVariables));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static PlaceholderTemplate parse(String text) {
+        List<Object> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int length = text.length();
+        int pos = 0;
+
+        while (pos < length) {
+            if (!text.startsWith(PREFIX, pos)) {
+                literal.append(text.charAt(pos++));
+                continue;
+            }
+
+            /*Escaped variable: $${VAR} is rendered as ${VAR}*/
+            if (pos > 0 && text.charAt(pos - 1) == ESCAPE) {
+                literal.setLength(literal.length() - 1);
+                literal.append(ESCAPE);
+                pos++;
+                continue;
+            }
+
+            int end = findVariableEnd(text, pos);
+            if (end < 0) {
+                /*Variable not closed, the rest of the text is not processed*/
+                literal.append(text, pos, length);
+                break;
+            }
+
+            if (literal.length() > 0) {
+                segments.add(literal.toString());
+                literal.setLength(0);
+            }
+            String name = text.substring(pos + PREFIX.length(), end);
+            segments.add(new Variable(text.substring(pos, end + 1), name.contains(PREFIX) ? parse(name) : null, name));
+            pos = end + 1;
+        }
+
+        if (literal.length() > 0) {
+            segments.add(literal.toString());
+        }
+        return new PlaceholderTemplate(text, Collections.unmodifiableList(segments));
+    }
+
+    private static int findVariableEnd(String text, int start) {
+        int nested = 0;
+        int pos = start + PREFIX.length();
+        while (pos < text.length()) {
+            if (text.startsWith(PREFIX, pos)) {
+                nested++;
+                pos += PREFIX.length();
+            } else if (text.charAt(pos) == SUFFIX) {
+                if (nested == 0) {
+                    return pos;
+                }
+                nested--;
+                pos++;
+            } else {
+                pos++;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reference to a variable found in the template
+     */
+    private static final class Variable {
+
+        private final String raw;
+
+        private final PlaceholderTemplate nameTemplate;
+
+        private final String name;
+
+        Variable(String raw, PlaceholderTemplate nameTemplate, String name) {
+            this.raw = raw;
+            this.nameTemplate = nameTemplate;
+            this.name = name;
+        }
+
+        String resolve(StringLookup lookup, boolean failOnUndefinedVariables, List<String> priorVariables) {
+            String nameExpression = name;
+            if (nameTemplate != null) {
+                List<String> namePriorVariables = new ArrayList<>();
+                namePriorVariables.add(name);
+                nameExpression = nameTemplate.render(lookup, failOnUndefinedVariables, namePriorVariables);
+            }
+
+            String varName = nameExpression;
+            String defaultValue = null;
+            int delimiter = nameExpression.indexOf(VALUE_DELIMITER);
+            if (delimiter >= 0) {
+                varName = nameExpression.substring(0, delimiter);
+                defaultValue = nameExpression.substring(delimiter + VALUE_DELIMITER.length());
+            }
+
+            checkCyclicSubstitution(varName, priorVariables);
+            priorVariables.add(varName);
+            try {
+                String value = lookup.lookup(varName);
+                if (value == null) {
+                    value = defaultValue;
+                }
+                if (value != null) {
+                    return value.contains(PREFIX) ? parse(value).render(lookup, failOnUndefinedVariables, priorVariables) : value;
+                }
+                if (failOnUndefinedVariables) {
+                    throw new IllegalArgumentException(String.format("Cannot resolve variable '%s' (enableSubstitutionInVariables=%s).", varName, true));
+                }
+                return raw;
+            } finally {
+                priorVariables.remove(priorVariables.size() - 1);
+            }
+        }
+
+        private static void checkCyclicSubstitution(String varName, List<String> priorVariables) {
+            if (!priorVariables.contains(varName)) {
+                return;
+            }
+            StringBuilder sb = new StringBuilder("Infinite loop in property interpolation of ");
+            sb.append(priorVariables.remove(0));
+            sb.append(": ");
+            sb.append(String.join("->", priorVariables));
+            throw new IllegalStateException(sb.toString());
+        }
+    }
+}
@@ -24,7 +24,6 @@ import io.cucumber.core.stepexpression.DataTableArgument;
 import io.cucumber.core.stepexpression.DocStringArgument;
 import io.cucumber.core.stepexpression.ExpressionArgument;
 import io.cucumber.cucumberexpressions.Group;
-import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.text.StringSubstitutor;
 import org.apache.commons.text.lookup.StringLookup;
 import org.apache.commons.text.lookup.StringLookupFactory;
@@ -36,9 +35,6 @@ import org.assertj.core.api.Assertions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.FileNotFoundException;
-import java.lang.reflect.Field;
-import java.net.URISyntaxException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -51,6 +47,8 @@ import java.util.Map;
 @Aspect
 public final class ReplacementAspect {
 
+    private static final String PICKLE_STEP_DEFINITION_MATCH = "io.cucumber.core.runner.PickleStepDefinitionMatch";
+
     private static Logger logger = LoggerFactory.getLogger(ReplacementAspect.class.getCanonicalName());
 
     private static Map<String, StringLookup> stringLookupMap = new HashMap<String, StringLookup>() {
@@ -63,13 +61,36 @@ public final class ReplacementAspect {
         }
     };
 
+    /**
+     * Lookup used to resolve the variables. It is stateless, so it can be shared by all the threads
+     */
+    private static final StringLookup STRING_LOOKUP = StringLookupFactory.INSTANCE.interpolatorStringLookup(stringLookupMap, new DefaultLookUp(), true);
+
+    /**
+     * Returns a new {@link StringSubstitutor} that resolves the variables in the same way as
+     * {@link #replacePlaceholders(String, boolean)}. Undefined variables are left as they are.
+     * <p>
+     * A new instance is returned in every call, so the caller can change its configuration without
+     * affecting other threads
+     *
+     * @return StringSubstitutor
+     */
     public static StringSubstitutor getInterpolator() {
-        return interpolator;
+        return getInterpolator(false);
     }
 
-    private static StringSubstitutor interpolator = new StringSubstitutor(StringLookupFactory.INSTANCE.interpolatorStringLookup(stringLookupMap, new DefaultLookUp(), true))
-            .setEnableSubstitutionInVariables(true);
-
+    /**
+     * Returns a new {@link StringSubstitutor} that resolves the variables in the same way as
+     * {@link #replacePlaceholders(String, boolean)}
+     *
+     * @param setEnableUndefinedVariableException whether an exception should be thrown is a variable could not be replaced
+     * @return StringSubstitutor
+     */
+    public static StringSubstitutor getInterpolator(boolean setEnableUndefinedVariableException) {
+        return new StringSubstitutor(STRING_LOOKUP)
+                .setEnableSubstitutionInVariables(true)
+                .setEnableUndefinedVariableException(setEnableUndefinedVariableException);
+    }
 
     @Pointcut("execution (* io.cucumber.core.runner.PickleStepDefinitionMatch.runStep(..)) && args(state)")
     protected void replacementArguments(TestCaseState state) {
@@ -79,92 +100,85 @@ public final class ReplacementAspect {
      * When a step is about to be executed, the Match#getArguments method is called. this function retrieves the the arguments that
      * are going to be used when executing the glue method.
      * <p>
-     * This method captures this event and replaces the variables with their appropriate value using reflection
+     * This method captures this event and replaces the variables with their appropriate value. The private fields
+     * of the arguments are accessed using the cached accessors of {@link FieldAccessors}, and arguments that do not
+     * contain any placeholder are not processed
      *
      * @param jp    the jp
      * @param state the state
-     * @throws NoSuchFieldException    the no such field exception
-     * @throws IllegalAccessException  the illegal access exception
-     * @throws FileNotFoundException   the file not found exception
      * @throws NonReplaceableException the non replaceable exception
-     * @throws ConfigurationException  the configuration exception
-     * @throws URISyntaxException      the uri syntax exception
      */
     @Before(value = "replacementArguments(state)")
-    public void aroundReplacementArguments(JoinPoint jp, TestCaseState state) throws NoSuchFieldException, IllegalAccessException, FileNotFoundException, NonReplaceableException, ConfigurationException, URISyntaxException {
+    public void aroundReplacementArguments(JoinPoint jp, TestCaseState state) throws NonReplaceableException {
 
         Object pickleStepDefinitionMatch = jp.getThis();
 
-        if (pickleStepDefinitionMatch.getClass().getName().matches("io.cucumber.core.runner.PickleStepDefinitionMatch")) {
-            Field argumentsField = pickleStepDefinitionMatch.getClass().getSuperclass().getDeclaredField("arguments");
-            argumentsField.setAccessible(true);
-            List<io.cucumber.core.stepexpression.Argument> arguments = (List<io.cucumber.core.stepexpression.Argument>) argumentsField.get(pickleStepDefinitionMatch);
+        if (PICKLE_STEP_DEFINITION_MATCH.equals(pickleStepDefinitionMatch.getClass().getName())) {
+            List<io.cucumber.core.stepexpression.Argument> arguments = FieldAccessors.get(pickleStepDefinitionMatch, "arguments");
 
             for (io.cucumber.core.stepexpression.Argument argument : arguments) {
 
                 //If is a normal expression argument
                 if (argument instanceof ExpressionArgument) {
-                    ExpressionArgument expressionArgument = (ExpressionArgument) argument;
-                    Field textField = expressionArgument.getClass().getDeclaredField("argument");
-                    textField.setAccessible(true);
-                    io.cucumber.cucumberexpressions.Argument textArgument = (io.cucumber.cucumberexpressions.Argument) textField.get(expressionArgument);
-                    String currentTextValue = textArgument.getGroup().getValue();
+                    io.cucumber.cucumberexpressions.Argument textArgument = FieldAccessors.get(argument, "argument");
+                    Group group = textArgument.getGroup();
+                    String currentTextValue = group.getValue();
 
                     /*In steps with optional params, the argument could be null*/
-                    if (currentTextValue != null) {
-                        String replacedValue = replacePlaceholders(currentTextValue, true);
-
-                        Group group = textArgument.getGroup();
-                        Field valueField = group.getClass().getDeclaredField("value");
-                        valueField.setAccessible(true);
-                        valueField.set(group, replacedValue);
+                    if (hasPlaceholders(currentTextValue)) {
+                        FieldAccessors.set(group, "value", replacePlaceholders(currentTextValue, true));
 
-                        List<Group> children = group.getChildren();
-                        for (Group child : children) {
-                            Field valueFieldChild = child.getClass().getDeclaredField("value");
+                        for (Group child : group.getChildren()) {
                             String valuechild = child.getValue();
-                            if (valuechild != null) {
-                                String replacedValueChild = replacePlaceholders(valuechild, true);
-                                valueFieldChild.setAccessible(true);
-                                valueFieldChild.set(child, replacedValueChild);
+                            if (hasPlaceholders(valuechild)) {
+                                FieldAccessors.set(child, "value", replacePlaceholders(valuechild, true));
                             }
                         }
-
                     }
                 }
 
                 //If is a datatable argument
                 if (argument instanceof DataTableArgument) {
-                    DataTableArgument dataTabeArgument = (DataTableArgument) argument;
-                    Field listField = dataTabeArgument.getClass().getDeclaredField("argument");
-                    listField.setAccessible(true);
-                    List<List<String>> rows = (List<List<String>>) listField.get(dataTabeArgument);
+                    List<List<String>> rows = FieldAccessors.get(argument, "argument");
 
                     for (List<String> row : rows) {
                         for (int i = 0; i <= row.size() - 1; i++) {
-                            row.set(i, replacePlaceholders(row.get(i), true));
+                            String cell = row.get(i);
+                            if (hasPlaceholders(cell)) {
+                                row.set(i, replacePlaceholders(cell, true));
+                            }
                         }
                     }
-
-                    listField.set(dataTabeArgument, rows);
                 }
 
                 //If is a Docstring argument
                 if (argument instanceof DocStringArgument) {
-                    DocStringArgument docStringArgument = (DocStringArgument) argument;
-                    Field docstringField = docStringArgument.getClass().getDeclaredField("content");
-                    docstringField.setAccessible(true);
-                    String docStringValue = (String) docstringField.get(docStringArgument);
-                    String replacedDocStringValue = replacePlaceholders(docStringValue, true);
-                    docstringField.set(docStringArgument, replacedDocStringValue);
+                    String docStringValue = FieldAccessors.get(argument, "content");
+                    if (hasPlaceholders(docStringValue)) {
+                        FieldAccessors.set(argument, "content", replacePlaceholders(docStringValue, true));
+                    }
                 }
             }
         }
     }
 
+    /**
+     * Returns true if the given text could contain placeholders to replace
+     *
+     * @param text text to check
+     * @return true if the text contains "${"
+     */
+    private static boolean hasPlaceholders(String text) {
+        return text != null && text.contains("${");
+    }
+
     /**
      * Replaces every placeholder element, enclosed in ${} with the
      * corresponding value
+     * <p>
+     * The element is parsed only once: the resulting {@link PlaceholderTemplate} is kept
+     * in a bounded cache, so the same step executed again only needs to resolve the variables.
+     * No shared state is modified, so this method can be used from several threads at the same time
      *
      * @param element element to be replaced
      * @param setEnableUndefinedVariableException      whether an exception should be thrown is a variable could not be replaced
@@ -173,13 +187,12 @@ public final class ReplacementAspect {
      */
     public static String replacePlaceholders(String element, boolean setEnableUndefinedVariableException) throws NonReplaceableException {
 
-        if (element == null) {
-            return null;
+        if (!hasPlaceholders(element)) {
+            return element;
         }
 
         try {
-            interpolator.setEnableUndefinedVariableException(setEnableUndefinedVariableException);
-            return interpolator.replace(element);
+            return PlaceholderTemplate.of(element).render(STRING_LOOKUP, setEnableUndefinedVariableException);
         } catch (Exception e) {
             if (!setEnableUndefinedVariableException) {
                 return element;
@@ -20,7 +20,9 @@ import com.privalia.qa.lookups.DefaultLookUp;
 import com.privalia.qa.lookups.EnvPropertyLookup;
 import com.privalia.qa.lookups.LowerCaseLookup;
 import com.privalia.qa.lookups.UpperCaseLookUp;
+import com.privalia.qa.utils.ConditionExpression;
 import io.cucumber.core.backend.TestCaseState;
+import io.cucumber.plugin.event.PickleStepTestStep;
 import io.cucumber.plugin.event.Result;
 import io.cucumber.plugin.event.Status;
 import io.cucumber.plugin.event.TestCase;
@@ -34,8 +36,9 @@ import org.aspectj.lang.annotation.After;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Field;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
@@ -51,9 +54,9 @@ import java.util.regex.Pattern;
 @Aspect
 public class ifStatementAspect {
 
-    private static Boolean step_should_run = true;
+    private static final Logger LOGGER = LoggerFactory.getLogger(ifStatementAspect.class);
 
-    private static String step_text = "";
+    private static final Pattern IF_STATEMENT_PATTERN = Pattern.compile("if \\((.*)\\) \\{");
 
     private static Map<String, StringLookup> stringLookupMap = new HashMap<String, StringLookup>() {
         {
@@ -63,7 +66,7 @@ public class ifStatementAspect {
         }
     };
 
-    private static StringSubstitutor interpolator = new StringSubstitutor(StringLookupFactory.INSTANCE.interpolatorStringLookup(stringLookupMap, new DefaultLookUp(), true))
+    private static final StringSubstitutor INTERPOLATOR = new StringSubstitutor(StringLookupFactory.INSTANCE.interpolatorStringLookup(stringLookupMap, new DefaultLookUp(), true))
             .setEnableSubstitutionInVariables(true);
 
     /**
@@ -80,24 +83,32 @@ public class ifStatementAspect {
 
         Object pickleStepDefinitionMatch = pjp.getThis();
 
-        if (pickleStepDefinitionMatch.getClass().getName().matches("io.cucumber.core.runner.PickleStepDefinitionMatch")) {
+        if ("io.cucumber.core.runner.PickleStepDefinitionMatch".equals(pickleStepDefinitionMatch.getClass().getName())) {
 
-            Field stepField = pickleStepDefinitionMatch.getClass().getDeclaredField("step");
-            stepField.setAccessible(true);
-            io.cucumber.core.gherkin.Step step = (io.cucumber.core.gherkin.Step) stepField.get(pickleStepDefinitionMatch);
+            io.cucumber.core.gherkin.Step step = FieldAccessors.get(pickleStepDefinitionMatch, "step");
 
-            step_text = step.getText();
+            ConditionalBlockContext context = ConditionalBlockContext.forScenario(state);
+            String stepText = step.getText();
 
-            if (step.getText().startsWith("if (")) {
-                step_should_run = this.validateStatement(step.getText());
+            if (stepText.startsWith("if (")) {
+                /*Conditions of blocks nested in an inactive block are not evaluated*/
+                context.openBlock(context.isActive() && this.validateStatement(stepText));
+                context.recordStep(step.getLine(), false, true);
+                pjp.proceed();
+                return;
             }
 
-            if (step_should_run) {
+            if (stepText.matches("}")) {
+                context.closeBlock();
+                context.recordStep(step.getLine(), false, true);
                 pjp.proceed();
+                return;
             }
 
-            if (step.getText().matches("}")) {
-                step_should_run = true;
+            boolean shouldRun = context.isActive();
+            context.recordStep(step.getLine(), !shouldRun, false);
+            if (shouldRun) {
+                pjp.proceed();
             }
         }
     }
@@ -116,43 +127,48 @@ public class ifStatementAspect {
     }
 
     @After(value = "setResult(timeInstant, testCase, testStep, result)")
-    public void aroundSetResult(JoinPoint jp, Instant timeInstant, TestCase testCase, TestStep testStep, Result result) throws NoSuchFieldException, IllegalAccessException {
+    public void aroundSetResult(JoinPoint jp, Instant timeInstant, TestCase testCase, TestStep testStep, Result result) {
 
-        Object testStepFinished = jp.getThis();
-        Field currentResult = testStepFinished.getClass().getDeclaredField("result");
-        currentResult.setAccessible(true);
-        io.cucumber.plugin.event.Result currentResultObject = (io.cucumber.plugin.event.Result) currentResult.get(testStepFinished);
-        io.cucumber.plugin.event.Result skippedResult = new io.cucumber.plugin.event.Result(Status.SKIPPED, currentResultObject.getDuration(), currentResultObject.getError());
-
-        if (step_text.startsWith("if (") || step_text.matches("}")) {
+        if (!(testStep instanceof PickleStepTestStep)) {
             return;
         }
 
-        if (!step_should_run) {
-            currentResult.set(testStepFinished, skippedResult);
+        ConditionalBlockContext context = ConditionalBlockContext.current();
+        if (context != null && context.wasSkipped(((PickleStepTestStep) testStep).getStep().getLine())) {
+            Object testStepFinished = jp.getThis();
+            io.cucumber.plugin.event.Result currentResultObject = FieldAccessors.get(testStepFinished, "result");
+            io.cucumber.plugin.event.Result skippedResult = new io.cucumber.plugin.event.Result(Status.SKIPPED, currentResultObject.getDuration(), currentResultObject.getError());
+            FieldAccessors.set(testStepFinished, "result", skippedResult);
         }
 
     }
 
     /**
-     * Captures the given javascript statement and determines if it resolves
-     * to true or false.
+     * Captures the given statement and determines if it resolves to true or false.
+     * <p>
+     * The statement is evaluated with the built-in {@link ConditionExpression} engine, that compiles
+     * each distinct statement only once. If the statement uses a syntax that is not supported by it (or the
+     * value of a variable used outside quotes is not), the statement is evaluated as a javascript expression
+     * (this requires a javascript engine in the classpath)
      *
      * @param text Step text
      * @return True if the expression can be resolved to true, false otherwise
      */
     private Boolean validateStatement(String text) {
 
-        String pattern = "if \\((.*)\\) \\{";
-        Pattern r = Pattern.compile(pattern);
         String statement = "";
 
-        Matcher m = r.matcher(text);
+        Matcher m = IF_STATEMENT_PATTERN.matcher(text);
         if (m.find()) {
             statement = m.group(1);
         }
 
-        String result = interpolator.replace("${script:javascript:" + statement + "}");
-        return Boolean.parseBoolean(result.toLowerCase());
+        try {
+            return ConditionExpression.compile(statement).evaluate(INTERPOLATOR::replace);
+        } catch (IllegalArgumentException e) {
+            LOGGER.debug("Statement '{}' not supported by the built-in engine ({}), evaluating it as javascript", statement, e.getMessage());
+            String result = INTERPOLATOR.replace("${script:javascript:" + statement + "}");
+            return Boolean.parseBoolean(result.toLowerCase());
+        }
     }
 }
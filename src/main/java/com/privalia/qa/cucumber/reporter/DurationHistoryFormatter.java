@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.cucumber.reporter;
+
+import com.google.common.primitives.Longs;
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.Status;
+import io.cucumber.plugin.event.TestCase;
+import io.cucumber.plugin.event.TestCaseFinished;
+import io.cucumber.plugin.event.TestRunFinished;
+import io.cucumber.plugin.event.TestStepFinished;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps a history of the duration of the scenarios and steps across executions, and prints the
+ * scenarios that became slower.
+ * <p>
+ * The duration of every scenario, and the total duration of every step definition, are stored in a
+ * tab separated file (given with the system property DURATION_HISTORY_FILE). Only the last 20 executions
+ * are kept (DURATION_HISTORY_RUNS).
+ * <p>
+ * When the execution finishes, the duration of every passed scenario is compared with the median
+ * duration of the same scenario in the previous executions. Scenarios that are slower than the median
+ * by more than the given percentage (DURATION_REGRESSION_THRESHOLD, 50 by default) are printed. At
+ * least 3 previous executions are needed, and differences lower than 100ms are ignored.
+ * <p>
+ * Scenarios are identified by their feature and line. This plugin is disabled by default, it is only
+ * included when DURATION_HISTORY_FILE is set (see {@link com.privalia.qa.cucumber.testng.CucumberOptionsImpl})
+ *
+ * @author Jose Fernandez
+ */
+public class DurationHistoryFormatter implements ConcurrentEventListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DurationHistoryFormatter.class);
+
+    private static final String HEADER = "# gingerspec duration history: S run millis status scenario name | T run millis count step";
+
+    private static final String SCENARIO = "S";
+
+    private static final String STEP = "T";
+
+    private static final int MIN_SAMPLES = 3;
+
+    private static final long MIN_DIFFERENCE_MILLIS = 100;
+
+    /**
+     * All the runner classes executed in the same JVM belong to the same execution
+     */
+    private static final String RUN_ID = String.valueOf(System.currentTimeMillis());
+
+    private static final ConcurrentMap<String, ScenarioDuration> SCENARIOS = new ConcurrentHashMap<>();
+
+    private static final ConcurrentMap<String, StepDuration> STEPS = new ConcurrentHashMap<>();
+
+    private static final Set<String> REPORTED = ConcurrentHashMap.newKeySet();
+
+    private final File file;
+
+    private final PrintStream out;
+
+    public DurationHistoryFormatter(String file) {
+        this(new File(file), System.out);
+    }
+
+    DurationHistoryFormatter(File file, PrintStream out) {
+        this.file = file;
+        this.out = out;
+    }
+
+    @Override
+    public void setEventPublisher(EventPublisher publisher) {
+        publisher.registerHandlerFor(TestStepFinished.class, this::handleTestStepFinished);
+        publisher.registerHandlerFor(TestCaseFinished.class, this::handleTestCaseFinished);
+        publisher.registerHandlerFor(TestRunFinished.class, this::handleTestRunFinished);
+    }
+
+    private void handleTestStepFinished(TestStepFinished event) {
+        if (!(event.getTestStep() instanceof PickleStepTestStep)) {
+            return;
+        }
+        String pattern = ((PickleStepTestStep) event.getTestStep()).getPattern();
+        StepDuration step = STEPS.computeIfAbsent(clean(pattern), key -> new StepDuration());
+        step.millis.add(event.getResult().getDuration().toMillis());
+        step.count.increment();
+    }
+
+    private void handleTestCaseFinished(TestCaseFinished event) {
+        TestCase testCase = event.getTestCase();
+        String key = clean(TestNGPrettyFormatter.relativize(testCase.getUri()).getSchemeSpecificPart() + ":" + testCase.getLocation().getLine());
+        record(key, testCase.getName(), event.getResult().getDuration().toMillis(), event.getResult().getStatus());
+    }
+
+    /**
+     * Records the duration of a scenario in the current execution
+     *
+     * @param key    feature and line of the scenario
+     * @param name   name of the scenario
+     * @param millis duration in milliseconds
+     * @param status result of the scenario
+     */
+    static void record(String key, String name, long millis, Status status) {
+        SCENARIOS.put(key, new ScenarioDuration(clean(name), millis, status));
+    }
+
+    private void handleTestRunFinished(TestRunFinished event) {
+        int runs = Integer.getInteger("DURATION_HISTORY_RUNS", 20);
+        double threshold = parseThreshold(System.getProperty("DURATION_REGRESSION_THRESHOLD", "50"));
+        List<String> regressions = update(this.file, runs, threshold);
+        if (!regressions.isEmpty()) {
+            out.println();
+            out.println("Scenarios slower than their median duration in the previous executions (threshold " + threshold + "%):");
+            for (String regression : regressions) {
+                out.println("  " + regression);
+            }
+            out.println();
+        }
+    }
+
+    /**
+     * Parses the regression threshold, falling back to 50% when the value is not a valid number
+     *
+     * @param value value of DURATION_REGRESSION_THRESHOLD
+     * @return percentage over the median to consider a scenario slower
+     */
+    static double parseThreshold(String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid DURATION_REGRESSION_THRESHOLD '{}', using 50", value);
+            return 50;
+        }
+    }
+
+    /**
+     * Stores the durations of the current execution in the history file, and returns the scenarios
+     * that have regressed and were not reported yet
+     *
+     * @param file      history file
+     * @param runs      number of executions to keep
+     * @param threshold percentage over the median to consider a scenario slower
+     * @return description of the slower scenarios
+     */
+    static synchronized List<String> update(File file, int runs, double threshold) {
+        Map<String, List<String[]>> previousRuns = read(file);
+        List<String> runIds = new ArrayList<>(previousRuns.keySet());
+        Collections.sort(runIds);
+        List<String> keptRuns = runIds.subList(Math.max(0, runIds.size() - (runs - 1)), runIds.size());
+
+        Map<String, List<Long>> history = new HashMap<>();
+        for (String run : keptRuns) {
+            for (String[] fields : previousRuns.get(run)) {
+                if (SCENARIO.equals(fields[0]) && Status.PASSED.name().equals(fields[3])) {
+                    history.computeIfAbsent(fields[4], key -> new ArrayList<>()).add(Long.parseLong(fields[2]));
+                }
+            }
+        }
+
+        List<String> regressions = new ArrayList<>();
+        List<Map.Entry<String, ScenarioDuration>> scenarios = new ArrayList<>(SCENARIOS.entrySet());
+        scenarios.sort(Map.Entry.comparingByKey());
+        for (Map.Entry<String, ScenarioDuration> scenario : scenarios) {
+            ScenarioDuration current = scenario.getValue();
+            List<Long> durations = history.get(scenario.getKey());
+            if (current.status != Status.PASSED || durations == null || durations.size() < MIN_SAMPLES
+                    || REPORTED.contains(scenario.getKey())) {
+                continue;
+            }
+            long median = median(durations);
+            if (current.millis - median >= MIN_DIFFERENCE_MILLIS && current.millis > median * (1 + threshold / 100)) {
+                REPORTED.add(scenario.getKey());
+                regressions.add(String.format("%d ms (median %d ms, +%d%%) %s %s", current.millis, median,
+                        Math.round((current.millis - median) * 100.0 / Math.max(median, 1)), scenario.getKey(), current.name));
+            }
+        }
+
+        write(file, previousRuns, keptRuns);
+        return regressions;
+    }
+
+    /**
+     * Removes the durations recorded in the current execution
+     */
+    static void reset() {
+        SCENARIOS.clear();
+        STEPS.clear();
+        REPORTED.clear();
+    }
+
+    private static Map<String, List<String[]>> read(File file) {
+        Map<String, List<String[]>> runs = new HashMap<>();
+        if (!file.isFile()) {
+            return runs;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", -1);
+                if (line.startsWith("#") || fields.length < 5 || RUN_ID.equals(fields[1])) {
+                    continue;
+                }
+                if (Longs.tryParse(fields[2]) == null) {
+                    LOGGER.debug("Ignoring malformed line in the duration history {}: {}", file, line);
+                    continue;
+                }
+                runs.computeIfAbsent(fields[1], key -> new ArrayList<>()).add(fields);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Could not read the duration history {}: {}", file, e.getMessage());
+        }
+        return runs;
+    }
+
+    private static void write(File file, Map<String, List<String[]>> previousRuns, List<String> keptRuns) {
+        try {
+            File folder = file.getAbsoluteFile().getParentFile();
+            folder.mkdirs();
+            File tmp = File.createTempFile(file.getName(), ".tmp", folder);
+            try (Writer writer = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+                writer.write(HEADER + "\n");
+                for (String run : keptRuns) {
+                    for (String[] fields : previousRuns.get(run)) {
+                        writer.write(String.join("\t", fields) + "\n");
+                    }
+                }
+                for (Map.Entry<String, ScenarioDuration> scenario : SCENARIOS.entrySet()) {
+                    ScenarioDuration duration = scenario.getValue();
+                    writer.write(SCENARIO + "\t" + RUN_ID + "\t" + duration.millis + "\t" + duration.status.name() + "\t"
+                            + scenario.getKey() + "\t" + duration.name + "\n");
+                }
+                for (Map.Entry<String, StepDuration> step : STEPS.entrySet()) {
+                    writer.write(STEP + "\t" + RUN_ID + "\t" + step.getValue().millis.sum() + "\t" + step.getValue().count.sum() + "\t"
+                            + step.getKey() + "\n");
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOGGER.warn("Could not write the duration history {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static long median(List<Long> values) {
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        int middle = sorted.size() / 2;
+        return sorted.size() % 2 == 1 ? sorted.get(middle) : (sorted.get(middle - 1) + sorted.get(middle)) / 2;
+    }
+
+    private static String clean(String text) {
+        return text.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    /**
+     * Duration of a scenario in the current execution
+     */
+    private static final class ScenarioDuration {
+
+        private final String name;
+
+        private final long millis;
+
+        private final Status status;
+
+        ScenarioDuration(String name, long millis, Status status) {
+            this.name = name;
+            this.millis = millis;
+            this.status = status;
+        }
+    }
+
+    /**
+     * Total duration of a step definition in the current execution
+     */
+    private static final class StepDuration {
+
+        private final LongAdder millis = new LongAdder();
+
+        private final LongAdder count = new LongAdder();
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+
+package com.privalia.qa.cucumber.reporter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.HookTestStep;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.Result;
+import io.cucumber.plugin.event.TestCase;
+import io.cucumber.plugin.event.TestCaseFinished;
+import io.cucumber.plugin.event.TestRunFinished;
+import io.cucumber.plugin.event.TestRunStarted;
+import io.cucumber.plugin.event.TestStepFinished;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Writes the results as newline delimited json (one json document per line) while the tests are running,
+ * so the file can be tailed (i.e. by a dashboard) during the execution.
+ * <p>
+ * A line is written when the execution starts and finishes, and for every finished step (or hook) and
+ * scenario, with its status, duration, thread, tags and error. Lines are written by a background thread,
+ * which flushes the file every time it has nothing else to write, so the threads running the scenarios
+ * never wait for the disk. Nothing is kept in memory once the line is written.
+ * <p>
+ * This plugin is disabled by default, it is included with -DNDJSON_RESULTS=true (see
+ * {@link com.privalia.qa.cucumber.testng.CucumberOptionsImpl}), and the results are written to
+ * target/executions/com.mypackage.myClass.ndjson
+ *
+ * @author Jose Fernandez
+ */
+public class NdjsonResultsFormatter implements ConcurrentEventListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NdjsonResultsFormatter.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Marks the end of the lines to write
+     */
+    private static final Object END = new Object();
+
+    private final BlockingQueue<Object> lines = new LinkedBlockingQueue<>();
+
+    private final Writer writer;
+
+    private final Thread writerThread;
+
+    public NdjsonResultsFormatter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.writerThread = new Thread(this::writeLines, "gingerspec-ndjson-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    @Override
+    public void setEventPublisher(EventPublisher publisher) {
+        publisher.registerHandlerFor(TestRunStarted.class, this::handleTestRunStarted);
+        publisher.registerHandlerFor(TestStepFinished.class, this::handleTestStepFinished);
+        publisher.registerHandlerFor(TestCaseFinished.class, this::handleTestCaseFinished);
+        publisher.registerHandlerFor(TestRunFinished.class, this::handleTestRunFinished);
+    }
+
+    private void handleTestRunStarted(TestRunStarted event) {
+        Map<String, Object> line = line("runStarted", event.getInstant());
+        enqueue(line);
+    }
+
+    private void handleTestStepFinished(TestStepFinished event) {
+        Map<String, Object> line = line("step", event.getInstant());
+        TestCase testCase = event.getTestCase();
+        line.put("testCaseId", testCase.getId().toString());
+        line.put("uri", TestNGPrettyFormatter.relativize(testCase.getUri()).getSchemeSpecificPart());
+
+        if (event.getTestStep() instanceof PickleStepTestStep) {
+            PickleStepTestStep step = (PickleStepTestStep) event.getTestStep();
+            line.put("line", step.getStep().getLine());
+            line.put("keyword", step.getStep().getKeyword().trim());
+            line.put("text", step.getStep().getText());
+        } else if (event.getTestStep() instanceof HookTestStep) {
+            line.put("hook", ((HookTestStep) event.getTestStep()).getHookType().name().toLowerCase(Locale.ROOT));
+        }
+
+        line.put("location", event.getTestStep().getCodeLocation());
+        putResult(line, event.getResult());
+        enqueue(line);
+    }
+
+    private void handleTestCaseFinished(TestCaseFinished event) {
+        Map<String, Object> line = line("testCase", event.getInstant());
+        TestCase testCase = event.getTestCase();
+        line.put("testCaseId", testCase.getId().toString());
+        line.put("uri", TestNGPrettyFormatter.relativize(testCase.getUri()).getSchemeSpecificPart());
+        line.put("line", testCase.getLocation().getLine());
+        line.put("name", testCase.getName());
+        line.put("tags", testCase.getTags());
+        putResult(line, event.getResult());
+        enqueue(line);
+    }
+
+    private void handleTestRunFinished(TestRunFinished event) {
+        Map<String, Object> line = line("runFinished", event.getInstant());
+        if (event.getResult().getError() != null) {
+            line.put("error", String.valueOf(event.getResult().getError()));
+        }
+        enqueue(line);
+        lines.add(END);
+
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, Object> line(String type, Instant instant) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("type", type);
+        line.put("timestamp", instant.toString());
+        line.put("thread", Thread.currentThread().getName());
+        return line;
+    }
+
+    private static void putResult(Map<String, Object> line, Result result) {
+        line.put("status", result.getStatus().name());
+        line.put("durationMs", result.getDuration().toMillis());
+        if (result.getError() != null) {
+            line.put("error", String.valueOf(result.getError()));
+        }
+    }
+
+    /**
+     * The line is serialized in the thread that runs the scenario, and written by the writer thread
+     *
+     * @param line content of the line
+     */
+    private void enqueue(Map<String, Object> line) {
+        try {
+            lines.add(MAPPER.writeValueAsString(line));
+        } catch (JsonProcessingException e) {
+            LOGGER.warn("Could not serialize result: {}", e.getMessage());
+        }
+    }
+
+    private void writeLines() {
+        boolean failed = false;
+        try {
+            Object line;
+            while ((line = lines.take()) != END) {
+                if (failed) {
+                    continue;
+                }
+                try {
+                    writer.write((String) line);
+                    writer.write('\n');
+                    if (lines.isEmpty()) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    /*Keep consuming the lines, so they are not accumulated in memory*/
+                    failed = true;
+                    LOGGER.warn("Could not write results: {}", e.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                LOGGER.warn("Could not close results: {}", e.getMessage());
+            }
+        }
+    }
+}
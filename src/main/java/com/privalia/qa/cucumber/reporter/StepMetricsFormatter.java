@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.cucumber.reporter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.privalia.qa.utils.BackendInstrumentation;
+import com.privalia.qa.utils.BackendMetrics;
+import com.privalia.qa.utils.LatencyHistogram;
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.HookTestStep;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.Status;
+import io.cucumber.plugin.event.TestRunFinished;
+import io.cucumber.plugin.event.TestStep;
+import io.cucumber.plugin.event.TestStepFinished;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the duration of every step (and hook) executed, grouped by step definition.
+ * <p>
+ * When the execution finishes, the count, failures, total time and the p50/p90/p99/max latencies
+ * of each step definition are written to step-metrics.json, and to step-metrics.prom in the
+ * Prometheus text format, so they can be pushed to a Pushgateway or read by a node exporter.
+ * <p>
+ * The latency, payload sizes and errors of the calls made to the backends (see
+ * {@link BackendInstrumentation}) are written to backend-metrics.json and backend-metrics.prom.
+ * <p>
+ * Metrics are shared by all the runner classes executed in the same JVM, so the files always
+ * contain the totals of the whole execution. This plugin is automatically included (see
+ * {@link com.privalia.qa.cucumber.testng.CucumberOptionsImpl}), and the files are written to
+ * target/executions/
+ *
+ * @author Jose Fernandez
+ */
+public class StepMetricsFormatter implements ConcurrentEventListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StepMetricsFormatter.class);
+
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private static final ConcurrentMap<String, StepMetrics> METRICS = new ConcurrentHashMap<>();
+
+    private final String destinationFolder;
+
+    public StepMetricsFormatter() {
+        this("target/executions");
+    }
+
+    public StepMetricsFormatter(String destinationFolder) {
+        this.destinationFolder = destinationFolder;
+    }
+
+    @Override
+    public void setEventPublisher(EventPublisher publisher) {
+        publisher.registerHandlerFor(TestStepFinished.class, this::handleTestStepFinished);
+        publisher.registerHandlerFor(TestRunFinished.class, this::handleTestRunFinished);
+    }
+
+    private void handleTestStepFinished(TestStepFinished event) {
+        Status status = event.getResult().getStatus();
+        if (status != Status.PASSED && status != Status.FAILED) {
+            return;
+        }
+
+        TestStep step = event.getTestStep();
+        String name;
+        if (step instanceof PickleStepTestStep) {
+            name = ((PickleStepTestStep) step).getPattern();
+        } else if (step instanceof HookTestStep) {
+            name = "@" + ((HookTestStep) step).getHookType().name().toLowerCase(Locale.ROOT) + " " + step.getCodeLocation();
+        } else {
+            return;
+        }
+
+        StepMetrics metrics = METRICS.computeIfAbsent(name, key -> new StepMetrics(key, step.getCodeLocation()));
+        metrics.histogram.record(event.getResult().getDuration().toNanos());
+        if (status == Status.FAILED) {
+            metrics.failures.increment();
+        }
+    }
+
+    private void handleTestRunFinished(TestRunFinished event) {
+        write(new File(this.destinationFolder));
+    }
+
+    /**
+     * Writes the metrics recorded so far to step-metrics.json and step-metrics.prom (and
+     * backend-metrics.json and backend-metrics.prom, if any backend was called)
+     *
+     * @param folder destination folder
+     */
+    static synchronized void write(File folder) {
+        List<StepMetrics> steps = new ArrayList<>(METRICS.values());
+        steps.sort(Comparator.comparingLong((StepMetrics m) -> m.histogram.getSum()).reversed());
+
+        try {
+            folder.mkdirs();
+            writeJson(new File(folder, "step-metrics.json"), steps);
+            writePrometheus(new File(folder, "step-metrics.prom"), steps);
+
+            List<BackendMetrics.Endpoint> endpoints = BackendInstrumentation.getMetrics().getEndpoints();
+            if (!endpoints.isEmpty()) {
+                writeBackendJson(new File(folder, "backend-metrics.json"), endpoints);
+                writeBackendPrometheus(new File(folder, "backend-metrics.prom"), endpoints);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Could not write step metrics to {}: {}", folder, e.getMessage());
+        }
+    }
+
+    /**
+     * Removes all the recorded metrics
+     */
+    static void reset() {
+        METRICS.clear();
+    }
+
+    private static void writeJson(File file, List<StepMetrics> steps) throws IOException {
+        List<Map<String, Object>> json = new ArrayList<>();
+        for (StepMetrics step : steps) {
+            LatencyHistogram histogram = step.histogram;
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("step", step.name);
+            entry.put("location", step.location);
+            entry.put("count", histogram.getCount());
+            entry.put("failures", step.failures.sum());
+            entry.put("totalMs", toMillis(histogram.getSum()));
+            entry.put("p50Ms", toMillis(histogram.getPercentile(50)));
+            entry.put("p90Ms", toMillis(histogram.getPercentile(90)));
+            entry.put("p99Ms", toMillis(histogram.getPercentile(99)));
+            entry.put("maxMs", toMillis(histogram.getMax()));
+            json.add(entry);
+        }
+
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("steps", json);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, root);
+    }
+
+    private static void writePrometheus(File file, List<StepMetrics> steps) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write("# HELP gingerspec_step_duration_seconds Duration of the executed steps\n");
+            writer.write("# TYPE gingerspec_step_duration_seconds summary\n");
+            for (StepMetrics step : steps) {
+                String label = "step=\"" + escape(step.name) + "\"";
+                for (double quantile : QUANTILES) {
+                    writer.write("gingerspec_step_duration_seconds{" + label + ",quantile=\"" + quantile + "\"} "
+                            + toSeconds(step.histogram.getPercentile(quantile * 100)) + "\n");
+                }
+                writer.write("gingerspec_step_duration_seconds_sum{" + label + "} " + toSeconds(step.histogram.getSum()) + "\n");
+                writer.write("gingerspec_step_duration_seconds_count{" + label + "} " + step.histogram.getCount() + "\n");
+            }
+
+            writer.write("# HELP gingerspec_step_duration_max_seconds Maximum duration of the executed steps\n");
+            writer.write("# TYPE gingerspec_step_duration_max_seconds gauge\n");
+            for (StepMetrics step : steps) {
+                writer.write("gingerspec_step_duration_max_seconds{step=\"" + escape(step.name) + "\"} " + toSeconds(step.histogram.getMax()) + "\n");
+            }
+
+            writer.write("# HELP gingerspec_step_failures_total Number of failed executions of the steps\n");
+            writer.write("# TYPE gingerspec_step_failures_total counter\n");
+            for (StepMetrics step : steps) {
+                writer.write("gingerspec_step_failures_total{step=\"" + escape(step.name) + "\"} " + step.failures.sum() + "\n");
+            }
+        }
+    }
+
+    private static void writeBackendJson(File file, List<BackendMetrics.Endpoint> endpoints) throws IOException {
+        List<Map<String, Object>> json = new ArrayList<>();
+        for (BackendMetrics.Endpoint endpoint : endpoints) {
+            LatencyHistogram histogram = endpoint.getLatency();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("backend", endpoint.getBackend());
+            entry.put("target", endpoint.getTarget());
+            entry.put("operation", endpoint.getOperation());
+            entry.put("count", histogram.getCount());
+            entry.put("errors", endpoint.getErrors());
+            if (endpoint.getRequestBytes() != BackendInstrumentation.UNKNOWN_SIZE) {
+                entry.put("requestBytes", endpoint.getRequestBytes());
+            }
+            if (endpoint.getResponseBytes() != BackendInstrumentation.UNKNOWN_SIZE) {
+                entry.put("responseBytes", endpoint.getResponseBytes());
+            }
+            entry.put("totalMs", toMillis(histogram.getSum()));
+            entry.put("p50Ms", toMillis(histogram.getPercentile(50)));
+            entry.put("p90Ms", toMillis(histogram.getPercentile(90)));
+            entry.put("p99Ms", toMillis(histogram.getPercentile(99)));
+            entry.put("maxMs", toMillis(histogram.getMax()));
+            json.add(entry);
+        }
+
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("backends", json);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, root);
+    }
+
+    private static void writeBackendPrometheus(File file, List<BackendMetrics.Endpoint> endpoints) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write("# HELP gingerspec_backend_call_duration_seconds Duration of the calls made to the backends\n");
+            writer.write("# TYPE gingerspec_backend_call_duration_seconds summary\n");
+            for (BackendMetrics.Endpoint endpoint : endpoints) {
+                String label = backendLabel(endpoint);
+                for (double quantile : QUANTILES) {
+                    writer.write("gingerspec_backend_call_duration_seconds{" + label + ",quantile=\"" + quantile + "\"} "
+                            + toSeconds(endpoint.getLatency().getPercentile(quantile * 100)) + "\n");
+                }
+                writer.write("gingerspec_backend_call_duration_seconds_sum{" + label + "} " + toSeconds(endpoint.getLatency().getSum()) + "\n");
+                writer.write("gingerspec_backend_call_duration_seconds_count{" + label + "} " + endpoint.getLatency().getCount() + "\n");
+            }
+
+            writer.write("# HELP gingerspec_backend_call_errors_total Number of failed calls made to the backends\n");
+            writer.write("# TYPE gingerspec_backend_call_errors_total counter\n");
+            for (BackendMetrics.Endpoint endpoint : endpoints) {
+                writer.write("gingerspec_backend_call_errors_total{" + backendLabel(endpoint) + "} " + endpoint.getErrors() + "\n");
+            }
+
+            writer.write("# HELP gingerspec_backend_request_bytes_total Size of the payloads sent to the backends\n");
+            writer.write("# TYPE gingerspec_backend_request_bytes_total counter\n");
+            for (BackendMetrics.Endpoint endpoint : endpoints) {
+                if (endpoint.getRequestBytes() != BackendInstrumentation.UNKNOWN_SIZE) {
+                    writer.write("gingerspec_backend_request_bytes_total{" + backendLabel(endpoint) + "} " + endpoint.getRequestBytes() + "\n");
+                }
+            }
+
+            writer.write("# HELP gingerspec_backend_response_bytes_total Size of the payloads received from the backends\n");
+            writer.write("# TYPE gingerspec_backend_response_bytes_total counter\n");
+            for (BackendMetrics.Endpoint endpoint : endpoints) {
+                if (endpoint.getResponseBytes() != BackendInstrumentation.UNKNOWN_SIZE) {
+                    writer.write("gingerspec_backend_response_bytes_total{" + backendLabel(endpoint) + "} " + endpoint.getResponseBytes() + "\n");
+                }
+            }
+        }
+    }
+
+    private static String backendLabel(BackendMetrics.Endpoint endpoint) {
+        return "backend=\"" + escape(endpoint.getBackend()) + "\",target=\"" + escape(endpoint.getTarget())
+                + "\",operation=\"" + escape(endpoint.getOperation()) + "\"";
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+
+    private static double toSeconds(long nanos) {
+        return nanos / NANOS_PER_SECOND;
+    }
+
+    /**
+     * Metrics of a step definition
+     */
+    private static final class StepMetrics {
+
+        private final String name;
+
+        private final String location;
+
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        private final LongAdder failures = new LongAdder();
+
+        StepMetrics(String name, String location) {
+            this.name = name;
+            this.location = location;
+        }
+    }
+}
@@ -31,6 +31,11 @@ import java.lang.reflect.Field;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static com.privalia.qa.cucumber.reporter.Formats.ansi;
 import static com.privalia.qa.cucumber.reporter.Formats.monochrome;
@@ -70,12 +75,25 @@ public class TestNGPrettyFormatter implements ConcurrentEventListener, ColorAwar
 
     private static final String TABLES_INDENT = "     ";
 
-    private final Map<UUID, Integer> commentStartIndex = new HashMap<>();
+    private final Map<UUID, Integer> commentStartIndex = new ConcurrentHashMap<>();
+
+    private final Map<UUID, ScenarioOutput> outputs = new ConcurrentHashMap<>();
+
+    private final Map<String, String> featureHeaders = new ConcurrentHashMap<>();
 
     private final NiceAppendable out;
 
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "gingerspec-pretty-formatter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private Formats formats = ansi();
 
+    /**
+     * Last feature printed. Only used by the writer thread
+     */
     private String currentFeatureFile;
 
     private final TestSourcesModel testSources = new TestSourcesModel();
@@ -94,6 +112,7 @@ public class TestNGPrettyFormatter implements ConcurrentEventListener, ColorAwar
         publisher.registerHandlerFor(TestSourceRead.class, this::handleTestSourceRead);
         publisher.registerHandlerFor(TestCaseStarted.class, this::handleTestCaseStarted);
         publisher.registerHandlerFor(TestStepFinished.class, this::handleTestStepFinished);
+        publisher.registerHandlerFor(TestCaseFinished.class, this::handleTestCaseFinished);
         publisher.registerHandlerFor(WriteEvent.class, this::handleWrite);
         publisher.registerHandlerFor(EmbedEvent.class, this::handleEmbed);
         publisher.registerHandlerFor(TestRunFinished.class, this::handleTestRunFinished);
@@ -104,19 +123,22 @@ public class TestNGPrettyFormatter implements ConcurrentEventListener, ColorAwar
      * @param event  event
      */
     private void handleTestRunStarted(TestRunStarted event) {
+        StringBuilder banner = new StringBuilder();
         try {
-            printLinesFromResourcesFile("banner.txt", "output");
+            printLinesFromResourcesFile(new NiceAppendable(banner), "banner.txt", "output");
         } catch (IOException e) {
         }
+        write(() -> out.append(banner));
     }
 
     /**
      * Prints the given txt file located in the resources folder with the given format
+     * @param out               Where to print the file
      * @param resourcesFile     File name (must be located in resources/ folder)
      * @param format            Format to use (colour)
      * @throws IOException      If file is not found
      */
-    private void printLinesFromResourcesFile(String resourcesFile, String format) throws IOException {
+    private void printLinesFromResourcesFile(NiceAppendable out, String resourcesFile, String format) throws IOException {
         InputStream is = getClass().getClassLoader().getResourceAsStream(resourcesFile);
         BufferedReader br = new BufferedReader(new InputStreamReader(is));
         String line = null;
@@ -131,29 +153,46 @@ public class TestNGPrettyFormatter implements ConcurrentEventListener, ColorAwar
     }
 
     private void handleTestCaseStarted(TestCaseStarted event) {
-        handleStartOfFeature(event);
+        NiceAppendable out = outputOf(event.getTestCase());
         out.println();
         preCalculateLocationIndent(event);
-        printTags(event);
-        printScenarioDefinition(event);
+        printTags(out, event);
+        printScenarioDefinition(out, event);
     }
 
     private void handleTestStepFinished(TestStepFinished event) {
-        printComments(event);
-        printStep(event);
-        printError(event);
+        NiceAppendable out = outputOf(event.getTestCase());
+        printComments(out, event);
+        printStep(out, event);
+        printError(out, event);
+    }
+
+    /**
+     * The output of the scenario is printed as a single block when the scenario finishes, so the
+     * output of scenarios running in parallel is never mixed
+     *
+     * @param event event
+     */
+    private void handleTestCaseFinished(TestCaseFinished event) {
+        commentStartIndex.remove(event.getTestCase().getId());
+        ScenarioOutput output = outputs.remove(event.getTestCase().getId());
+        if (output != null) {
+            write(() -> printScenario(output));
+        }
     }
 
     private void handleWrite(WriteEvent event) {
+        NiceAppendable out = outputOf(event.getTestCase());
         out.println();
-        printText(event);
+        printText(out, event);
         out.println();
 
     }
 
     private void handleEmbed(EmbedEvent event) {
+        NiceAppendable out = outputOf(event.getTestCase());
         out.println();
-        printEmbedding(event);
+        printEmbedding(out, event);
         out.println();
 
     }
@@ -163,30 +202,90 @@ public class TestNGPrettyFormatter implements ConcurrentEventListener, ColorAwar
      * @param event event
      */
     private void handleTestRunFinished(TestRunFinished event) {
+        for (UUID id : new ArrayList<>(outputs.keySet())) {
+            ScenarioOutput output = outputs.remove(id);
+            if (output != null) {
+                write(() -> printScenario(output));
+            }
+        }
+
+        StringBuilder help = new StringBuilder();
         try {
-            printLinesFromResourcesFile("helpMessage.txt", "comment");
+            printLinesFromResourcesFile(new NiceAppendable(help), "helpMessage.txt", "comment");
         } catch (IOException e) {
         }
-        out.close();
+        write(() -> {
+            out.append(help);
+            out.close();
+        });
+
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.warn("Timeout waiting for the output of the scenarios to be printed");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the buffer where the output of the given scenario is stored until the scenario finishes
+     *
+     * @param testCase the scenario
+     * @return buffer of the scenario
+     */
+    private NiceAppendable outputOf(TestCase testCase) {
+        return outputs.computeIfAbsent(testCase.getId(), id -> {
+            String featureFile = testCase.getUri().toString();
+            return new ScenarioOutput(featureFile, featureHeaders.computeIfAbsent(featureFile, this::formatFeature));
+        }).out;
+    }
+
+    /**
+     * Executes the given task in the writer thread. The workers never wait for the console, and only
+     * one thread writes to it
+     *
+     * @param task task that writes to the output
+     */
+    private void write(Runnable task) {
+        try {
+            writer.execute(task);
+        } catch (RejectedExecutionException e) {
+            /*Events received after the end of the execution*/
+            synchronized (writer) {
+                task.run();
+            }
+        }
     }
 
-    private void handleStartOfFeature(TestCaseStarted event) {
-        if (currentFeatureFile == null || !currentFeatureFile.equals(event.getTestCase().getUri().toString())) {
+    /**
+     * Prints the output of a scenario, preceded by the beginning of the feature if the previous
+     * scenario printed belongs to another feature
+     *
+     * @param output output of the scenario
+     */
+    private void printScenario(ScenarioOutput output) {
+        if (!output.featureFile.equals(currentFeatureFile)) {
             if (currentFeatureFile != null) {
                 out.println();
             }
-            currentFeatureFile = event.getTestCase().getUri().toString();
-            printFeature(currentFeatureFile);
+            currentFeatureFile = output.featureFile;
+            out.append(output.featureHeader);
         }
+        out.append(output.text);
     }
 
     /**
-     * Prints the beginning of the feature file, from the Feature tags to the
+     * Returns the beginning of the feature file, from the Feature tags to the
      * description
      *
      * @param path Path of the feature file
+     * @return the beginning of the feature
      */
-    private void printFeature(String path) {
+    private String formatFeature(String path) {
+        StringBuilder header = new StringBuilder();
+        NiceAppendable out = new NiceAppendable(header);
         Messages.GherkinDocument.Feature feature = null;
         try {
             feature = testSources.getFeature(new URI(path));
@@ -206,6 +305,7 @@ public class TestNGPrettyFormatter implements ConcurrentEventListener, ColorAwar
         if (feature.getDescription() != null) {
             out.println(feature.getDescription());
         }
+        return header.toString();
     }
 
     /**
@@ -214,9 +314,10 @@ public class TestNGPrettyFormatter implements ConcurrentEventListener, ColorAwar
      * GingerSPec variables can also be used in comments, this allow greater flexibility when
      * debugging (i.e "#log print variable !{VAR}")
      *
+     * @param out buffer of the scenario
      * @param event event
      */
-    private void printComments(TestStepFinished event) {
+    private void printComments(NiceAppendable out, TestStepFinished event) {
         if (event.getTestStep() instanceof PickleStepTestStep) {
             PickleStepTestStep testStep = (PickleStepTestStep) event.getTestStep();
             String comment = testSources.getRawLineString(testStep.getUri(), testStep.getStepLine() - 2);
@@ -248,7 +349,7 @@ public class TestNGPrettyFormatter implements ConcurrentEventListener, ColorAwar
         commentStartIndex.put(testCase.getId(), max(longestStep, scenarioLength) + 1);
     }
 
-    private void printTags(TestCaseStarted event) {
+    private void printTags(NiceAppendable out, TestCaseStarted event) {
         List<String> tags = event.getTestCase().getTags();
         if (!tags.isEmpty()) {
             StringBuilder formattedTags = new StringBuilder(formats.get("unused_arg").text(String.join(" ", tags)));
@@ -256,7 +357,7 @@ public class TestNGPrettyFormatter implements ConcurrentEventListener, ColorAwar
         }
     }
 
-    private void printScenarioDefinition(TestCaseStarted event) {
+    private void printScenarioDefinition(NiceAppendable out, TestCaseStarted event) {
         TestCase testCase = event.getTestCase();
         String definitionText = formatScenarioDefinition(testCase);
         String path = relativize(testCase.getUri()).getSchemeSpecificPart();
@@ -269,9 +370,10 @@ public class TestNGPrettyFormatter implements ConcurrentEventListener, ColorAwar
      * Before printing a step, this formatter will replace any variable placeholder
      * (!{VAR}, ${VAR},#{VAR} and @{VAR}). This operation is performed in {@link #formatStepText(String, String, Format, Format, List)}
      *
+     * @param out buffer of the scenario
      * @param event event
      */
-    private void printStep(TestStepFinished event) {
+    private void printStep(NiceAppendable out, TestStepFinished event) {
         if (event.getTestStep() instanceof PickleStepTestStep) {
             PickleStepTestStep testStep = (PickleStepTestStep) event.getTestStep();
             String keyword = testStep.getStep().getKeyword();
@@ -281,10 +383,10 @@ public class TestNGPrettyFormatter implements ConcurrentEventListener, ColorAwar
                     formats.get(status + "_arg"), testStep.getDefinitionArgument());
             String locationIndent = calculateLocationIndent(event.getTestCase(), formatPlainStep(keyword, stepText));
             out.println(STEP_INDENT + formattedStepText + locationIndent);
-            printStepExtraArguments(formats.get(status), testStep);
+            printStepExtraArguments(out, formats.get(status), testStep);
 
             if (System.getProperty("SHOW_STACK_INFO") != null) {
-                this.printStepStackInformation(event.getTestStep());
+                this.printStepStackInformation(out, event.getTestStep());
             }
         }
     }
@@ -295,10 +397,11 @@ public class TestNGPrettyFormatter implements ConcurrentEventListener, ColorAwar
      * Reflection had to be used since only doing {@link PickleStepTestStep#getStepArgument()} would return
      * the arguments without the necessary replacements done by {@link com.privalia.qa.aspects.ReplacementAspect}
      *
+     * @param out      Where to print the arguments
      * @param format   Format to apply
      * @param testStep PickleStepTestStep object where to get the elements
      */
-    private void printStepExtraArguments(Format format, PickleStepTestStep testStep) {
+    private void printStepExtraArguments(NiceAppendable out, Format format, PickleStepTestStep testStep) {
 
         try {
             for (io.cucumber.core.stepexpression.Argument argument : this.getArguments(testStep)) {
@@ -330,9 +433,10 @@ public class TestNGPrettyFormatter implements ConcurrentEventListener, ColorAwar
     /**
      * Shows information about the underlying test step definition function, its location and the arguments used
      *
+     * @param out      Where to print the information
      * @param testStep PickleStepTestStep instance
      */
-    private void printStepStackInformation(TestStep testStep) {
+    private void printStepStackInformation(NiceAppendable out, TestStep testStep) {
 
         out.println(LOCATION_INDENT + getLocationText(testStep.getCodeLocation()));
 
@@ -402,9 +506,10 @@ public class TestNGPrettyFormatter implements ConcurrentEventListener, ColorAwar
      * this makes the console output less verbose an easier to read. This behaviour can be overridden by using
      * -DSHOW_ERRORS_STACKTRACE when running the tests
      *
+     * @param out buffer of the scenario
      * @param event event
      */
-    private void printError(TestStepFinished event) {
+    private void printError(NiceAppendable out, TestStepFinished event) {
         Result result = event.getResult();
         Throwable error = result.getError();
         if (error != null) {
@@ -422,7 +527,7 @@ public class TestNGPrettyFormatter implements ConcurrentEventListener, ColorAwar
         }
     }
 
-    private void printText(WriteEvent event) {
+    private void printText(NiceAppendable out, WriteEvent event) {
         try (BufferedReader lines = new BufferedReader(new StringReader(event.getText()))) {
             String line;
             while ((line = lines.readLine()) != null) {
@@ -433,7 +538,7 @@ public class TestNGPrettyFormatter implements ConcurrentEventListener, ColorAwar
         }
     }
 
-    private void printEmbedding(EmbedEvent event) {
+    private void printEmbedding(NiceAppendable out, EmbedEvent event) {
         String line = "Embedding " + event.getName() + " [" + event.getMediaType() + " " + event.getData().length
                 + " bytes]";
         out.println(STEP_SCENARIO_INDENT + line);
@@ -529,4 +634,22 @@ public class TestNGPrettyFormatter implements ConcurrentEventListener, ColorAwar
         formats = monochrome ? monochrome() : Formats.ansi();
     }
 
+    /**
+     * Output of a scenario, printed when the scenario finishes
+     */
+    private static final class ScenarioOutput {
+
+        private final String featureFile;
+
+        private final String featureHeader;
+
+        private final StringBuilder text = new StringBuilder();
+
+        private final NiceAppendable out = new NiceAppendable(text);
+
+        ScenarioOutput(String featureFile, String featureHeader) {
+            this.featureFile = featureFile;
+            this.featureHeader = featureHeader;
+        }
+    }
 }
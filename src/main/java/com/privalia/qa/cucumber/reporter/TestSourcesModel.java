@@ -34,18 +34,23 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static io.cucumber.gherkin.Gherkin.makeSourceEnvelope;
 import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 
+/**
+ * Sources of the features being executed.
+ * <p>
+ * The lines of each source are indexed when the source is read, and the Gherkin AST is parsed the first
+ * time it is needed. The model can be used from several threads when the scenarios run in parallel
+ */
 final class TestSourcesModel {
 
-    private final Map<URI, TestSourceRead> pathToReadEventMap = new HashMap<>();
+    private final Map<URI, SourceLines> pathToSourceMap = new ConcurrentHashMap<>();
 
-    private final Map<URI, GherkinDocument> pathToAstMap = new HashMap<>();
-
-    private final Map<URI, Map<Integer, AstNode>> pathToNodeMap = new HashMap<>();
+    private final Map<URI, ParsedSource> pathToAstMap = new ConcurrentHashMap<>();
 
     static Scenario getScenarioDefinition(AstNode astNode) {
         AstNode candidate = astNode;
@@ -102,24 +107,25 @@ final class TestSourcesModel {
     }
 
     void addTestSourceReadEvent(URI path, TestSourceRead event) {
-        pathToReadEventMap.put(path, event);
+        pathToSourceMap.put(path, new SourceLines(event.getSource()));
+        pathToAstMap.remove(path);
     }
 
     Feature getFeature(URI path) {
-        if (!pathToAstMap.containsKey(path)) {
-            parseGherkinSource(path);
-        }
-        if (pathToAstMap.containsKey(path)) {
-            return pathToAstMap.get(path).getFeature();
-        }
-        return null;
+        ParsedSource parsedSource = getParsedSource(path);
+        return parsedSource == null ? null : parsedSource.gherkinDocument.getFeature();
     }
 
-    private void parseGherkinSource(URI path) {
-        if (!pathToReadEventMap.containsKey(path)) {
-            return;
+    private ParsedSource getParsedSource(URI path) {
+        return pathToAstMap.computeIfAbsent(path, this::parseGherkinSource);
+    }
+
+    private ParsedSource parseGherkinSource(URI path) {
+        SourceLines sourceLines = pathToSourceMap.get(path);
+        if (sourceLines == null) {
+            return null;
         }
-        String source = pathToReadEventMap.get(path).getSource();
+        String source = sourceLines.source;
 
         List<Messages.Envelope> sources = singletonList(
             makeSourceEnvelope(source, path.toString()));
@@ -137,14 +143,12 @@ final class TestSourcesModel {
                 .findFirst()
                 .orElse(null);
 
-        pathToAstMap.put(path, gherkinDocument);
         Map<Integer, AstNode> nodeMap = new HashMap<>();
         AstNode currentParent = new AstNode(gherkinDocument.getFeature(), null);
         for (FeatureChild child : gherkinDocument.getFeature().getChildrenList()) {
             processFeatureDefinition(nodeMap, child, currentParent);
         }
-        pathToNodeMap.put(path, nodeMap);
-
+        return new ParsedSource(gherkinDocument, nodeMap);
     }
 
     private void processFeatureDefinition(Map<Integer, AstNode> nodeMap, FeatureChild child, AstNode currentParent) {
@@ -208,21 +212,14 @@ final class TestSourcesModel {
     }
 
     AstNode getAstNode(URI path, int line) {
-        if (!pathToNodeMap.containsKey(path)) {
-            parseGherkinSource(path);
-        }
-        if (pathToNodeMap.containsKey(path)) {
-            return pathToNodeMap.get(path).get(line);
-        }
-        return null;
+        ParsedSource parsedSource = getParsedSource(path);
+        return parsedSource == null ? null : parsedSource.nodeMap.get(line);
     }
 
     boolean hasBackground(URI path, int line) {
-        if (!pathToNodeMap.containsKey(path)) {
-            parseGherkinSource(path);
-        }
-        if (pathToNodeMap.containsKey(path)) {
-            AstNode astNode = pathToNodeMap.get(path).get(line);
+        ParsedSource parsedSource = getParsedSource(path);
+        if (parsedSource != null) {
+            AstNode astNode = parsedSource.nodeMap.get(line);
             return getBackgroundForTestCase(astNode) != null;
         }
         return false;
@@ -245,21 +242,66 @@ final class TestSourcesModel {
         return (Feature) astNode.node;
     }
 
+    /**
+     * Returns the given line of the source, without the leading and trailing spaces
+     *
+     * @param uri      uri of the feature
+     * @param stepLine index of the line (starting from 0)
+     * @return the line, or an empty string if the source or the line does not exist
+     */
     public String getRawLineString(URI uri, int stepLine) {
-        Feature feature = getFeature(uri);
-        if (feature != null) {
-            TestSourceRead event = getTestSourceReadEvent(uri);
-            String trimmedSourceLine = event.getSource().split("\n")[stepLine].trim();
-            return trimmedSourceLine;
+        SourceLines sourceLines = pathToSourceMap.get(uri);
+        return sourceLines == null ? "" : sourceLines.line(stepLine);
+    }
+
+    /**
+     * Source of a feature with the offset where each line starts
+     */
+    static final class SourceLines {
+
+        private final String source;
+
+        private final int[] lineOffsets;
+
+        SourceLines(String source) {
+            this.source = source;
+            int lines = 1;
+            for (int i = 0; i < source.length(); i++) {
+                if (source.charAt(i) == '\n') {
+                    lines++;
+                }
+            }
+            lineOffsets = new int[lines];
+            int line = 1;
+            for (int i = 0; i < source.length(); i++) {
+                if (source.charAt(i) == '\n') {
+                    lineOffsets[line++] = i + 1;
+                }
+            }
+        }
+
+        String line(int index) {
+            if (index < 0 || index >= lineOffsets.length) {
+                return "";
+            }
+            int end = index + 1 < lineOffsets.length ? lineOffsets[index + 1] - 1 : source.length();
+            return source.substring(lineOffsets[index], end).trim();
         }
-        return "";
     }
 
-    private TestSourceRead getTestSourceReadEvent(URI uri) {
-        if (pathToReadEventMap.containsKey(uri)) {
-            return pathToReadEventMap.get(uri);
+    /**
+     * Gherkin AST of a feature, and its nodes by line
+     */
+    private static final class ParsedSource {
+
+        private final GherkinDocument gherkinDocument;
+
+        private final Map<Integer, AstNode> nodeMap;
+
+        ParsedSource(GherkinDocument gherkinDocument, Map<Integer, AstNode> nodeMap) {
+            this.gherkinDocument = gherkinDocument;
+            this.nodeMap = nodeMap;
         }
-        return null;
     }
 
     static class ExamplesRowWrapperNode extends GeneratedMessageV3 {
@@ -7,6 +7,7 @@ import freemarker.template.TemplateException;
 import freemarker.template.Version;
 import io.cucumber.plugin.ConcurrentEventListener;
 import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.TestRunFinished;
 import io.cucumber.plugin.event.TestSourceRead;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.text.WordUtils;
@@ -14,23 +15,38 @@ import org.apache.commons.text.WordUtils;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.io.Writer;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * Simple formatter to create a html web page representation of the feature file with a
  * table of contents menu at the top for easy navigation
+ * <p>
+ * The features are collected during the execution, and all the pages are rendered once, in parallel,
+ * when the execution finishes. The pages (and the index) are then written one by one
  *
  * @author Jose Fernandez
  */
 public class gingerHtmlFormatter implements ConcurrentEventListener {
 
+    private static final String RESOURCES_FOLDER = "src/main/java/com/privalia/qa/cucumber/reporter/resources";
+
     private final String destinationFolder;
 
+    private final Map<URI, String> sources = new ConcurrentHashMap<>();
+
     public gingerHtmlFormatter(String destinationFolder) {
         this.destinationFolder = destinationFolder;
     }
@@ -38,57 +54,95 @@ public class gingerHtmlFormatter implements ConcurrentEventListener {
     @Override
     public void setEventPublisher(EventPublisher publisher) {
         publisher.registerHandlerFor(TestSourceRead.class, this::handleTestSourceRead);
+        publisher.registerHandlerFor(TestRunFinished.class, this::handleTestRunFinished);
     }
 
     private void handleTestSourceRead(TestSourceRead event) {
-        this.generateHtml(event);
+        this.sources.put(event.getUri(), event.getSource());
+    }
+
+    private void handleTestRunFinished(TestRunFinished event) {
+        this.generateHtml();
     }
 
-    private void generateHtml(TestSourceRead event) {
-
-        featureDoc f = new featureDoc(event.getSource());
-
-        if (!f.getFeatureRules().isEmpty()) {
-
-            try {
-                Configuration cfg = new Configuration();
-                FileTemplateLoader templateLoader = new FileTemplateLoader(new File("src/main/java/com/privalia/qa/cucumber/reporter/resources"));
-                cfg.setTemplateLoader(templateLoader);
-                cfg.setIncompatibleImprovements(new Version(2, 3, 31));
-                cfg.setDefaultEncoding("UTF-8");
-                cfg.setLocale(Locale.US);
-                Template featureTemplate = cfg.getTemplate("feature_doc_page.ftl");
-                Template indexTemplate = cfg.getTemplate("index_template.ftl");
-                new File(this.destinationFolder).mkdirs();
-                Writer featureWriter = new FileWriter(this.destinationFolder + "/" + WordUtils.uncapitalize(f.getFeatureName()).replaceAll(" ", "-") + ".html");
-                Writer indexWriter = new FileWriter(this.destinationFolder + "/index.html");
-
-                try {
-                    /*Build the feature html page*/
-                    Map<String, Object> featurePageVariables = new HashMap<>();
-                    featurePageVariables.put("featureDoc", f);
-                    featurePageVariables.put("tableOfContents", this.getFileAsString("src/main/java/com/privalia/qa/cucumber/reporter/resources/table-of-contents.js"));
-                    featurePageVariables.put("returnToTop", this.getFileAsString("src/main/java/com/privalia/qa/cucumber/reporter/resources/return-to-top.js"));
-                    featurePageVariables.put("copyToClipboard", this.getFileAsString("src/main/java/com/privalia/qa/cucumber/reporter/resources/copy-to-clipboard.js"));
-                    featurePageVariables.put("style", this.getFileAsString("src/main/java/com/privalia/qa/cucumber/reporter/resources/style.css"));
-                    featureTemplate.process(featurePageVariables, featureWriter);
-
-                    /*Build the index page with whatever *.html files it finds in the same folder*/
-                    Map<String, Object> indexPageVariables = new HashMap<>();
-                    File[] files = new File(this.destinationFolder).listFiles();
-                    indexPageVariables.put("files", Arrays.asList(files));
-                    indexPageVariables.put("style", this.getFileAsString("src/main/java/com/privalia/qa/cucumber/reporter/resources/style.css"));
-                    indexPageVariables.put("gingerLogo", this.getFileAsString("src/test/resources/banner.txt"));
-                    indexTemplate.process(indexPageVariables, indexWriter);
-
-                } finally {
-                    featureWriter.close();
-                    indexWriter.close();
+    private void generateHtml() {
+
+        if (this.sources.isEmpty()) {
+            return;
+        }
+
+        try {
+            Configuration cfg = new Configuration();
+            FileTemplateLoader templateLoader = new FileTemplateLoader(new File(RESOURCES_FOLDER));
+            cfg.setTemplateLoader(templateLoader);
+            cfg.setIncompatibleImprovements(new Version(2, 3, 31));
+            cfg.setDefaultEncoding("UTF-8");
+            cfg.setLocale(Locale.US);
+            Template featureTemplate = cfg.getTemplate("feature_doc_page.ftl");
+            Template indexTemplate = cfg.getTemplate("index_template.ftl");
+            String style = this.getFileAsString(RESOURCES_FOLDER + "/style.css");
+
+            /*Variables shared by all the feature pages*/
+            Map<String, Object> commonVariables = new HashMap<>();
+            commonVariables.put("tableOfContents", this.getFileAsString(RESOURCES_FOLDER + "/table-of-contents.js"));
+            commonVariables.put("returnToTop", this.getFileAsString(RESOURCES_FOLDER + "/return-to-top.js"));
+            commonVariables.put("copyToClipboard", this.getFileAsString(RESOURCES_FOLDER + "/copy-to-clipboard.js"));
+            commonVariables.put("style", style);
+
+            new File(this.destinationFolder).mkdirs();
+
+            /*Render the feature html pages in parallel, sorted by uri so the page names are stable*/
+            List<RenderedPage> pages = this.sources.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .map(Map.Entry::getValue)
+                    .collect(Collectors.toList())
+                    .parallelStream()
+                    .map(featureDoc::new)
+                    .filter(f -> !f.getFeatureRules().isEmpty())
+                    .map(f -> this.renderFeaturePage(featureTemplate, commonVariables, f))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+
+            if (pages.isEmpty()) {
+                return;
+            }
+
+            /*Write the pages, features with the same name get a numeric suffix instead of overwriting each other*/
+            Set<String> names = new HashSet<>();
+            for (RenderedPage page : pages) {
+                String name = page.name;
+                for (int i = 2; !names.add(name); i++) {
+                    name = page.name + "-" + i;
                 }
+                FileUtils.writeStringToFile(new File(this.destinationFolder, name + ".html"), page.html, StandardCharsets.UTF_8);
+            }
 
-            } catch (IOException | TemplateException e) {
-                e.printStackTrace();
+            /*Build the index page with whatever *.html files it finds in the same folder*/
+            try (Writer indexWriter = new FileWriter(this.destinationFolder + "/index.html")) {
+                Map<String, Object> indexPageVariables = new HashMap<>();
+                File[] files = new File(this.destinationFolder).listFiles();
+                indexPageVariables.put("files", Arrays.asList(files));
+                indexPageVariables.put("style", style);
+                indexPageVariables.put("gingerLogo", this.getFileAsString("src/test/resources/banner.txt"));
+                indexTemplate.process(indexPageVariables, indexWriter);
             }
+
+        } catch (IOException | TemplateException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private RenderedPage renderFeaturePage(Template featureTemplate, Map<String, Object> commonVariables, featureDoc f) {
+
+        try {
+            Writer featureWriter = new StringWriter();
+            Map<String, Object> featurePageVariables = new HashMap<>(commonVariables);
+            featurePageVariables.put("featureDoc", f);
+            featureTemplate.process(featurePageVariables, featureWriter);
+            return new RenderedPage(WordUtils.uncapitalize(f.getFeatureName()).replaceAll(" ", "-"), featureWriter.toString());
+        } catch (IOException | TemplateException e) {
+            e.printStackTrace();
+            return null;
         }
     }
 
@@ -103,4 +157,16 @@ public class gingerHtmlFormatter implements ConcurrentEventListener {
         }
     }
 
+    private static final class RenderedPage {
+
+        private final String name;
+
+        private final String html;
+
+        private RenderedPage(String name, String html) {
+            this.name = name;
+            this.html = html;
+        }
+    }
+
 }
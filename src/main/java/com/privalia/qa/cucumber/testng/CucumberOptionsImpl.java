@@ -101,9 +101,23 @@ public class CucumberOptionsImpl implements CucumberOptions {
         /* Include TestNG reporter (store TestNG reports under /target/executions/com.mypackage.myClass.xml) */
         plugin.add("testng:" + targetExecutionsPath + this.className + ".xml");
 
+        /* Include streaming results, only with -DNDJSON_RESULTS=true (one json line per step and scenario under /target/executions/com.mypackage.myClass.ndjson) */
+        if (Boolean.getBoolean("NDJSON_RESULTS")) {
+            plugin.add("com.privalia.qa.cucumber.reporter.NdjsonResultsFormatter:" + targetExecutionsPath + this.className + ".ndjson");
+        }
+
         /*Include custom reporter*/
         plugin.add("com.privalia.qa.cucumber.reporter.TestNGPrettyFormatter");
 
+        /*Include step latency metrics (stored under /target/executions/step-metrics.json)*/
+        plugin.add("com.privalia.qa.cucumber.reporter.StepMetricsFormatter:" + targetExecutionsPath);
+
+        /*Include duration history and slowdown detection, only when a history file is given with -DDURATION_HISTORY_FILE*/
+        String durationHistoryFile = System.getProperty("DURATION_HISTORY_FILE");
+        if (durationHistoryFile != null && !durationHistoryFile.isEmpty()) {
+            plugin.add("com.privalia.qa.cucumber.reporter.DurationHistoryFormatter:" + durationHistoryFile);
+        }
+
         return plugin.toArray(new String[]{});
 
     }
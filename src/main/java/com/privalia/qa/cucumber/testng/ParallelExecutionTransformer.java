@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.cucumber.testng;
+
+import com.privalia.qa.utils.BaseGTest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.IAlterSuiteListener;
+import org.testng.IAnnotationTransformer;
+import org.testng.annotations.IDataProviderAnnotation;
+import org.testng.xml.XmlSuite;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * TestNG listener (registered via META-INF/services) that enables the parallel execution of the
+ * scenarios of the runner classes that extend {@link BaseGTest}.
+ *
+ * The parallel mode is activated with the system property PARALLEL=true. In that case, the data
+ * provider that returns the scenarios is marked as parallel, and the data provider thread count of
+ * the suite is set to the value of PARALLEL_THREADS (number of available processors by default).
+ *
+ * Concurrency limits per tag are configured with PARALLEL_LIMITS (see {@link BaseGTest})
+ *
+ * @author Jose Fernandez
+ */
+public class ParallelExecutionTransformer implements IAnnotationTransformer, IAlterSuiteListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelExecutionTransformer.class);
+
+    /**
+     * Returns true if the scenarios should be executed in parallel
+     *
+     * @return true if PARALLEL=true
+     */
+    public static boolean isParallelEnabled() {
+        return Boolean.parseBoolean(System.getProperty("PARALLEL", "false"));
+    }
+
+    /**
+     * Returns the amount of threads to use to execute the scenarios
+     *
+     * @return value of PARALLEL_THREADS, or the number of available processors
+     */
+    public static int getParallelThreads() {
+        int defaultThreads = Runtime.getRuntime().availableProcessors();
+        try {
+            int threads = Integer.parseInt(System.getProperty("PARALLEL_THREADS", String.valueOf(defaultThreads)).trim());
+            return threads > 0 ? threads : defaultThreads;
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid value for PARALLEL_THREADS, using {}", defaultThreads);
+            return defaultThreads;
+        }
+    }
+
+    @Override
+    public void transform(IDataProviderAnnotation annotation, Method method) {
+        if (isParallelEnabled() && method != null && method.getDeclaringClass().equals(BaseGTest.class)) {
+            annotation.setParallel(true);
+        }
+    }
+
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        if (!isParallelEnabled()) {
+            return;
+        }
+        int threads = getParallelThreads();
+        LOGGER.info("Parallel execution of scenarios enabled using {} threads", threads);
+        for (XmlSuite suite : suites) {
+            suite.setDataProviderThreadCount(threads);
+        }
+    }
+}
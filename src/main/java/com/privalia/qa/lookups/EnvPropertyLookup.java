@@ -30,12 +30,28 @@ import org.apache.commons.text.lookup.StringLookup;
 import java.io.File;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Custom lookup for getting values from properties files
  */
 public class EnvPropertyLookup implements StringLookup {
 
+    private static final String COMMON = "common";
+
+    /**
+     * Merged configuration of each environment ("common" when no environment is selected)
+     */
+    private static final ConcurrentMap<String, LoadedConfiguration> CONFIGURATIONS = new ConcurrentHashMap<>();
+
     /**
      * The file that contains all common configuration for the project (environment
      * independent configuration) must be located in /resources/configuration/common.properties
@@ -47,6 +63,10 @@ public class EnvPropertyLookup implements StringLookup {
      * for example, to use properties from the file pre.properties located in
      * /resources/configuration/pre.properties, just pass -Denv=pre when
      * running your tests
+     * <p>
+     * The merged configuration is loaded only once per environment and kept in memory. It is
+     * reloaded if the modification time of any of its files changes. Files are checked at most once
+     * every ENV_PROPERTIES_RELOAD_INTERVAL milliseconds (5000 by default, 0 to check on every lookup)
      * @param key   property to locate
      * @return      value of the property
      */
@@ -57,29 +77,12 @@ public class EnvPropertyLookup implements StringLookup {
             return null;
         }
 
-
-
         try {
-            Parameters params = new Parameters();
-            CombinedConfiguration config = new CombinedConfiguration(new OverrideCombiner());
-
             /*If environment specific file is required, search it by its name and add it as a source of properties*/
             String environment = ReplacementAspect.replacePlaceholders("${env}", false);
-            environment = ((environment == "${env}") ? null : environment);
+            environment = ("${env}".equals(environment) ? null : environment);
 
-            if (environment != null) {
-                FileBasedConfigurationBuilder<FileBasedConfiguration> config2 = new FileBasedConfigurationBuilder<FileBasedConfiguration>(
-                        PropertiesConfiguration.class).configure(params.properties().setFile(getfile(environment)));
-                config.addConfiguration(config2.getConfiguration());
-            }
-
-            /*Add the file common.properties as a source of properties*/
-            FileBasedConfigurationBuilder<FileBasedConfiguration> config1 = new FileBasedConfigurationBuilder<FileBasedConfiguration>(
-                    PropertiesConfiguration.class)
-                    .configure(params.properties().setFile(getfile("common")));
-
-            config.addConfiguration(config1.getConfiguration());
-            return config.getString(key);
+            return getConfiguration(environment).values.get(key);
         } catch (final ConfigurationException e) {
             throw new IllegalArgumentException(String.format("Could not find property %s in included properties files (under resources/configuration/).", key), e);
         } catch (URISyntaxException e) {
@@ -89,6 +92,31 @@ public class EnvPropertyLookup implements StringLookup {
         }
     }
 
+    /**
+     * Returns the cached configuration of the environment, loading it again if it was
+     * not loaded yet or if any of its files was modified since the last check
+     *
+     * @param environment name of the environment, or null to use only the common file
+     * @return merged configuration
+     */
+    private static LoadedConfiguration getConfiguration(String environment) throws ConfigurationException, URISyntaxException {
+        String cacheKey = environment == null ? COMMON : environment;
+        LoadedConfiguration configuration = CONFIGURATIONS.get(cacheKey);
+        if (configuration != null && !configuration.isModified()) {
+            return configuration;
+        }
+
+        List<File> files = new ArrayList<>();
+        if (environment != null) {
+            files.add(getfile(environment));
+        }
+        files.add(getfile(COMMON));
+
+        configuration = new LoadedConfiguration(files);
+        CONFIGURATIONS.put(cacheKey, configuration);
+        return configuration;
+    }
+
     private static File getfile(String environment) throws URISyntaxException {
 
         URL url = ReplacementAspect.class.getClassLoader().getResource("configuration/" + environment + ".properties");
@@ -99,4 +127,54 @@ public class EnvPropertyLookup implements StringLookup {
             throw new IllegalArgumentException(String.format("The configuration file %s.properties was not found", environment));
         }
     }
+
+    /**
+     * Snapshot of the properties of a set of files, in order of precedence
+     */
+    private static final class LoadedConfiguration {
+
+        private final Map<File, Long> lastModified = new HashMap<>();
+
+        private final Map<String, String> values;
+
+        private volatile long nextCheck;
+
+        LoadedConfiguration(List<File> files) throws ConfigurationException {
+            Parameters params = new Parameters();
+            CombinedConfiguration config = new CombinedConfiguration(new OverrideCombiner());
+
+            for (File file : files) {
+                lastModified.put(file, file.lastModified());
+                FileBasedConfigurationBuilder<FileBasedConfiguration> builder = new FileBasedConfigurationBuilder<FileBasedConfiguration>(
+                        PropertiesConfiguration.class).configure(params.properties().setFile(file));
+                config.addConfiguration(builder.getConfiguration());
+            }
+
+            Map<String, String> properties = new HashMap<>();
+            for (Iterator<String> keys = config.getKeys(); keys.hasNext();) {
+                String key = keys.next();
+                properties.put(key, config.getString(key));
+            }
+            this.values = Collections.unmodifiableMap(properties);
+            this.nextCheck = System.nanoTime() + checkInterval();
+        }
+
+        boolean isModified() {
+            long now = System.nanoTime();
+            if (now - nextCheck < 0) {
+                return false;
+            }
+            nextCheck = now + checkInterval();
+            for (Map.Entry<File, Long> entry : lastModified.entrySet()) {
+                if (entry.getKey().lastModified() != entry.getValue()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static long checkInterval() {
+            return TimeUnit.MILLISECONDS.toNanos(Long.getLong("ENV_PROPERTIES_RELOAD_INTERVAL", 5000));
+        }
+    }
 }
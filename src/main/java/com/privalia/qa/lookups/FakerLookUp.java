@@ -3,16 +3,41 @@ package com.privalia.qa.lookups;
 import com.github.javafaker.Faker;
 import org.apache.commons.text.lookup.StringLookup;
 
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
 
 /**
  * Evaluates the given expression using the java faker library
+ * <p>
+ * Faker instances are expensive to create (the locale files are loaded on creation), so one instance
+ * per locale is kept for each thread. If the system property FAKER_SEED is set (i.e -DFAKER_SEED=1234),
+ * the instances are seeded at the beginning of every scenario with a seed derived from FAKER_SEED and the
+ * scenario (its uri and line, see {@link #startScenario(String)}). So every scenario generates the same data
+ * on every execution, no matter the thread it runs on, and scenarios running in parallel do not generate
+ * the same data
  *
  * @see <a href="https://github.com/DiUS/java-faker">Java Faker</a>
  */
 public class FakerLookUp implements StringLookup {
 
-    Faker faker = new Faker();
+    private static final ThreadLocal<Map<String, SeededFaker>> FAKERS = ThreadLocal.withInitial(HashMap::new);
+
+    private static final ThreadLocal<String> SCENARIO = ThreadLocal.withInitial(() -> "");
+
+    /**
+     * Sets the scenario that is going to run in the current thread. If FAKER_SEED is set, the Faker instances
+     * of the thread are seeded again with a seed derived from FAKER_SEED and the given id
+     *
+     * @param id id of the scenario (i.e. its uri and line), must be the same in every execution
+     */
+    public static void startScenario(String id) {
+        SCENARIO.set(id == null ? "" : id);
+        for (SeededFaker faker : FAKERS.get().values()) {
+            faker.scenario = null;
+        }
+    }
 
     @Override
     public String lookup(String key) {
@@ -21,14 +46,58 @@ public class FakerLookUp implements StringLookup {
         }
 
         String[] arr = key.split(":");
+        String locale = null;
 
         if (arr.length >= 2) {
-            this.faker = new Faker((new Locale(arr[0])));
+            locale = arr[0];
             key = arr[1];
-        } else {
-            this.faker = new Faker();
         }
 
-        return this.faker.expression("#{" + key + "}");
+        return getFaker(locale).expression("#{" + key + "}");
+    }
+
+    /**
+     * Returns the Faker instance of the current thread for the given locale. If FAKER_SEED is set, the
+     * instance is seeded again every time the scenario running in the thread changes
+     *
+     * @param locale locale, or null for the default one
+     * @return Faker instance
+     */
+    private static Faker getFaker(String locale) {
+        String seed = System.getProperty("FAKER_SEED");
+        String cacheKey = (locale == null ? "" : locale) + "|" + (seed == null ? "" : seed);
+        SeededFaker faker = FAKERS.get().computeIfAbsent(cacheKey, k -> new SeededFaker(locale));
+        if (seed != null) {
+            String scenario = SCENARIO.get();
+            if (!scenario.equals(faker.scenario)) {
+                faker.random.setSeed(31 * toLong(seed.trim()) + scenario.hashCode());
+                faker.scenario = scenario;
+            }
+        }
+        return faker.faker;
+    }
+
+    /**
+     * Numeric seeds are used as they are, any other value is used through its hash code
+     */
+    private static long toLong(String seed) {
+        try {
+            return Long.parseLong(seed);
+        } catch (NumberFormatException e) {
+            return seed.hashCode();
+        }
+    }
+
+    private static final class SeededFaker {
+
+        private final Random random = new Random();
+
+        private final Faker faker;
+
+        private String scenario;
+
+        SeededFaker(String locale) {
+            this.faker = locale == null ? new Faker(random) : new Faker(new Locale(locale), random);
+        }
     }
 }
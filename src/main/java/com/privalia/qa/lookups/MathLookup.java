@@ -1,23 +1,84 @@
 package com.privalia.qa.lookups;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.privalia.qa.utils.ThreadProperty;
 import net.objecthunter.exp4j.Expression;
 import net.objecthunter.exp4j.ExpressionBuilder;
+import net.objecthunter.exp4j.function.Functions;
 import org.apache.commons.text.lookup.StringLookup;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 /**
  * Evaluates the given Mathematical expression using the exp4j library
+ * <p>
+ * Compiled expressions are cached by their text, so the same formula is parsed only once. The
+ * expression can use variables, that are taken from the thread properties (i.e. variables saved
+ * during the scenario), for example: ${math:price * 1.21}
  * @see <a href="https://www.objecthunter.net/exp4j/#Evaluating_an_expression">exp4j</a>
  */
 public class MathLookup implements StringLookup {
 
+    private static final int CACHE_SIZE = 1000;
+
+    private static final Cache<String, Expression> CACHE = CacheBuilder.newBuilder().maximumSize(CACHE_SIZE).build();
+
+    /**
+     * Names not preceded by a digit or a dot (scientific notation) and not followed by "(" (functions)
+     */
+    private static final Pattern VARIABLE_PATTERN = Pattern.compile("(?<![\\w.])([A-Za-z_][A-Za-z0-9_]*)(?!\\s*\\()");
+
+    private static final Set<String> CONSTANTS = new HashSet<>(Arrays.asList("pi", "π", "e", "φ"));
+
     @Override
     public String lookup(String key) {
         if (key == null) {
             return null;
         }
 
-        Expression e = new ExpressionBuilder(key).build();
+        /*Compiled expressions are not thread safe, so a copy is evaluated*/
+        Expression e = new Expression(compile(key));
+        for (String variable : e.getVariableNames()) {
+            String value = ThreadProperty.get(variable);
+            if (value != null) {
+                try {
+                    e.setVariable(variable, Double.parseDouble(value.trim()));
+                } catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException(String.format("Variable %s is not a number: %s", variable, value), ex);
+                }
+            }
+        }
         Double result = e.evaluate();
         return result.toString();
     }
+
+    private static Expression compile(String key) {
+        try {
+            return CACHE.get(key, () -> new ExpressionBuilder(key).variables(findVariables(key)).build());
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalArgumentException(e.getCause());
+        }
+    }
+
+    private static Set<String> findVariables(String key) {
+        Set<String> variables = new HashSet<>();
+        Matcher m = VARIABLE_PATTERN.matcher(key);
+        while (m.find()) {
+            String name = m.group(1);
+            if (!CONSTANTS.contains(name) && Functions.getBuiltinFunction(name) == null) {
+                variables.add(name);
+            }
+        }
+        return variables;
+    }
 }
@@ -33,6 +33,7 @@ import com.privalia.qa.exceptions.NonReplaceableException;
 import com.privalia.qa.utils.*;
 import io.appium.java_client.MobileDriver;
 import io.cucumber.datatable.DataTable;
+import io.restassured.specification.FilterableRequestSpecification;
 import io.restassured.specification.RequestSpecification;
 import org.apache.commons.collections.IteratorUtils;
 import org.apache.commons.configuration2.ex.ConfigurationException;
@@ -62,6 +63,7 @@ import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -78,6 +80,8 @@ public class CommonG {
 
     private static final int DEFAULT_SLEEP_TIME = 1500;
 
+    private static final AtomicLong EVIDENCE_SEQUENCE = new AtomicLong();
+
     private final Logger logger = LogManager.getLogger("com.privalia.qa.specs.CommonG");
 
     private WebDriver driver = null;
@@ -132,6 +136,8 @@ public class CommonG {
 
     private String lastSoapResponse;
 
+    private ClientRegistry clientRegistry = new ClientRegistry();
+
     public Alert getSeleniumAlert() {
         return SeleniumAlert;
     }
@@ -411,13 +417,32 @@ public class CommonG {
         return Conditions.INSTANCE.getTextFieldCondition();
     }
 
+    /**
+     * Get the registry used to obtain the backend clients.
+     *
+     * @return ClientRegistry
+     */
+    public ClientRegistry getClientRegistry() {
+        return clientRegistry;
+    }
+
+    /**
+     * Set the registry used to obtain the backend clients. This allows to plug
+     * a registry with a different scope (global, thread or scenario)
+     *
+     * @param clientRegistry registry to use
+     */
+    public void setClientRegistry(ClientRegistry clientRegistry) {
+        this.clientRegistry = clientRegistry;
+    }
+
     /**
      * Get the cassandra utils.
      *
      * @return CassandraUtils
      */
     public CassandraUtils getCassandraClient() {
-        return CassandraUtil.INSTANCE.getCassandraUtils();
+        return clientRegistry.get(CassandraUtils.class);
     }
 
     /**
@@ -426,7 +451,7 @@ public class CommonG {
      * @return ElasticSearchUtils
      */
     public ElasticSearchUtils getElasticSearchClient() {
-        return ElasticSearchUtil.INSTANCE.getElasticSearchUtils();
+        return clientRegistry.get(ElasticSearchUtils.class);
     }
 
     /**
@@ -435,7 +460,7 @@ public class CommonG {
      * @return KafkaUtils
      */
     public KafkaUtils getKafkaUtils() {
-        return KafkaUtil.INSTANCE.getKafkaUtils();
+        return clientRegistry.get(KafkaUtils.class);
     }
 
     /**
@@ -444,7 +469,7 @@ public class CommonG {
      * @return MongoDBUtils
      */
     public MongoDBUtils getMongoDBClient() {
-        return MongoDBUtil.INSTANCE.getMongoDBUtils();
+        return clientRegistry.get(MongoDBUtils.class);
     }
 
     /**
@@ -453,7 +478,7 @@ public class CommonG {
      * @return SqlUtils
      */
     public SqlUtils getSqlClient() {
-        return SqlUtil.INSTANCE.getSqlUtils();
+        return clientRegistry.get(SqlUtils.class);
     }
 
     /**
@@ -462,7 +487,7 @@ public class CommonG {
      * @return SwaggerUtils
      */
     public SwaggerUtils getSwagger() {
-        return SwaggerUtil.INSTANCE.getSwaggerUtils();
+        return clientRegistry.get(SwaggerUtils.class);
     }
 
     /**
@@ -471,7 +496,7 @@ public class CommonG {
      * @return GraphQlUtils
      */
     public GraphQlUtils getGraphQl() {
-        return GraphQlUtil.INSTANCE.getGraphQlUtils();
+        return clientRegistry.get(GraphQlUtils.class);
     }
 
     /**
@@ -480,7 +505,7 @@ public class CommonG {
      * @return SoapServiceUtils
      */
     public SoapServiceUtils getSoapServiceClient() {
-        return SoapServiceUtil.INSTANCE.getSoapServiceUtils();
+        return clientRegistry.get(SoapServiceUtils.class);
     }
 
     /**
@@ -489,7 +514,7 @@ public class CommonG {
      * @return FileParserUtils
      */
     public FileParserUtils getFileParserUtil() {
-        return FileParserUtil.INSTANCE.getFileParserUtils();
+        return clientRegistry.get(FileParserUtils.class);
     }
 
     /**
@@ -498,7 +523,7 @@ public class CommonG {
      * @return ZookeperSecUtils
      */
     public ZookeeperSecUtils getZookeeperSecClient() {
-        return ZookeeperSecUtil.INSTANCE.getZookeeperSecUtils();
+        return clientRegistry.get(ZookeeperSecUtils.class);
     }
 
     /**
@@ -745,32 +770,18 @@ public class CommonG {
 
 
     /**
-     * Capture a snapshot or an evidence in the driver
+     * Capture a snapshot or an evidence in the driver. The evidence is taken from the driver
+     * and written to disk in background by {@link EvidenceWriter} (page sources are compressed with gzip)
      *
      * @param driver driver used for testing
      * @param type   type
      * @param suffix suffix
-     * @return String
+     * @return path of the evidence
      */
     public String captureEvidence(WebDriver driver, String type, String suffix) {
 
-        String testSuffix = System.getProperty("TESTSUFFIX");
-        String dir = "./target/executions/";
-        if (testSuffix != null) {
-            dir = dir + testSuffix + "/";
-        }
-
-        String feature = ThreadProperty.get("feature", "unknown_feature");
         String currentBrowser = ThreadProperty.get("browser", "default");
-        String scenario = ThreadProperty.get("scenario", "unknown_scenario");
-
-        if (!scenario.equals("")) {
-            scenario = scenario
-                    .replaceAll("[\\\\|\\/|\\|\\s|:|\\*]", "_");
-        }
-
-        Timestamp ts = new Timestamp(new Date().getTime());
-        String outputFile = dir + feature + "/" + scenario + "/" + currentBrowser + "-" + ts + suffix;
+        String outputFile = this.evidencePath(type, suffix);
 
         if (type.endsWith("htmlSource")) {
             if (type.equals("framehtmlSource")) {
@@ -789,93 +800,120 @@ public class CommonG {
 
             if (!outputFile.equals("")) {
                 String source = ((RemoteWebDriver) driver).getPageSource();
-
-                File fout = new File(outputFile);
-                boolean dirs = fout.getParentFile().mkdirs();
-
-                try (FileOutputStream fos = new FileOutputStream(fout, true)) {
-                    Writer out = new OutputStreamWriter(fos, StandardCharsets.UTF_8);
-                    PrintWriter writer = new PrintWriter(out, false);
-                    writer.append(source);
-                    writer.close();
-                    out.close();
-                } catch (IOException e) {
-                    logger.error("Exception on evidence capture", e);
-                }
+                outputFile = EvidenceWriter.writePageSource(outputFile, source).getPath();
             }
 
         } else if ("screenCapture".equals(type)) {
             outputFile = outputFile + ".png";
-            File file = null;
+            byte[] screenshot = null;
             driver.switchTo().defaultContent();
 //            ((Locatable) driver.findElement(By.tagName("body")))
 ////                    .getCoordinates().inViewPort();
 
-            if (currentBrowser.startsWith("android")
-                    || currentBrowser.startsWith("droidemu")) {
-                Actions actions = new Actions(driver);
-                actions.keyDown(Keys.CONTROL).sendKeys(Keys.HOME).perform();
-                actions.keyUp(Keys.CONTROL).perform();
-
-                file = chromeFullScreenCapture(driver);
-            } else {
-
-                try {
-                    File screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
-                    file = new File("target/temp");
-                    FileUtils.copyFile(screenshot, file);
-                } catch (Exception e) {
-                    logger.error("Exception on taking screenshot", e);
-                }
-            }
             try {
-                FileUtils.copyFile(file, new File(outputFile));
-                file.delete();
-            } catch (IOException e) {
-                logger.error("Exception on copying browser screen capture", e);
+                screenshot = this.takeScreenshot(driver);
+            } catch (Exception e) {
+                logger.error("Exception on taking screenshot", e);
             }
 
-        } else if ("mobileScreenCapture".equals(type)) {
+            if (screenshot != null) {
+                EvidenceWriter.writeScreenshot(outputFile, screenshot);
+            }
 
-            outputFile = dir + feature + "/"
-                    + ThreadProperty.get("feature") + "." + ThreadProperty.get("scenario") + "/"  +
-                    scenario + ts.toString() + suffix;
+        } else if ("mobileScreenCapture".equals(type)) {
 
-            outputFile = outputFile.replaceAll(" ", "_") + ".png";
+            outputFile = outputFile + ".png";
 
             try {
-                File file = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
-                FileUtils.copyFile(file, new File(outputFile));
+                byte[] screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+                EvidenceWriter.writeScreenshot(outputFile, screenshot);
             } catch (Exception e) {
                 logger.error("Exception when taking screenshot", e);
             }
 
         } else if ("mobilePageSource".equals(type)) {
 
-            outputFile = dir + feature + "/"
-                    + ThreadProperty.get("feature") + "." + ThreadProperty.get("scenario") + "/"  +
-                    scenario + ts.toString() + suffix;
-
-            outputFile = outputFile.replaceAll(" ", "_") + ".xml";
+            outputFile = outputFile + ".xml";
 
             String source = driver.getPageSource();
+            outputFile = EvidenceWriter.writePageSource(outputFile, source).getPath();
+        }
+
+        return outputFile;
+
+    }
+
+    /**
+     * Saves the artifacts captured when a scenario failed as evidences, the same way
+     * {@link #captureEvidence(WebDriver, String, String)} does, but without asking the driver
+     * for the page source and the screenshot again
+     *
+     * @param artifacts artifacts captured from the driver
+     * @param suffix    suffix
+     * @return paths of the evidences
+     */
+    public List<String> captureEvidence(FailureArtifacts artifacts, String suffix) {
+        List<String> evidences = new ArrayList<>();
 
-            File fout = new File(outputFile);
-            boolean dirs = fout.getParentFile().mkdirs();
-
-            try (FileOutputStream fos = new FileOutputStream(fout, true)) {
-                Writer out = new OutputStreamWriter(fos, StandardCharsets.UTF_8);
-                PrintWriter writer = new PrintWriter(out, false);
-                writer.append(source);
-                writer.close();
-                out.close();
-            } catch (IOException e) {
-                logger.error("Exception on evidence capture", e);
+        if (artifacts.isMobile()) {
+            if (artifacts.getScreenshot() != null) {
+                evidences.add(EvidenceWriter.writeScreenshot(this.evidencePath("mobileScreenCapture", suffix) + ".png", artifacts.getScreenshot()).getPath());
+            }
+            if (artifacts.getPageSource() != null) {
+                evidences.add(EvidenceWriter.writePageSource(this.evidencePath("mobilePageSource", suffix) + ".xml", artifacts.getPageSource()).getPath());
             }
+            return evidences;
         }
 
-        return outputFile;
+        if (artifacts.getFramePageSource() != null) {
+            evidences.add(EvidenceWriter.writePageSource(this.evidencePath("framehtmlSource", suffix) + "frame.html", artifacts.getFramePageSource()).getPath());
+        }
+        if (artifacts.getPageSource() != null) {
+            evidences.add(EvidenceWriter.writePageSource(this.evidencePath("htmlSource", suffix) + ".html", artifacts.getPageSource()).getPath());
+        }
+        if (artifacts.getScreenshot() != null) {
+            evidences.add(EvidenceWriter.writeScreenshot(this.evidencePath("screenCapture", suffix) + ".png", artifacts.getScreenshot()).getPath());
+        }
+        return evidences;
+    }
+
+    /**
+     * Returns the path (without extension) where to store an evidence of the current scenario
+     *
+     * @param type   type of evidence
+     * @param suffix suffix
+     * @return path of the evidence
+     */
+    private String evidencePath(String type, String suffix) {
+
+        String testSuffix = System.getProperty("TESTSUFFIX");
+        String dir = "./target/executions/";
+        if (testSuffix != null) {
+            dir = dir + testSuffix + "/";
+        }
+
+        String feature = ThreadProperty.get("feature", "unknown_feature");
+        String currentBrowser = ThreadProperty.get("browser", "default");
+        String scenario = ThreadProperty.get("scenario", "unknown_scenario");
+
+        if (!scenario.equals("")) {
+            scenario = scenario
+                    .replaceAll("[\\\\|\\/|\\|\\s|:|\\*]", "_");
+        }
+
+        /*The line of the scenario (or example) and a sequence make the path unique when scenarios run in parallel*/
+        String scenarioFolder = scenario + "_" + ThreadProperty.get("scenarioLine", "0");
+        Timestamp ts = new Timestamp(new Date().getTime());
+        String uniqueSuffix = "-" + EVIDENCE_SEQUENCE.incrementAndGet() + suffix;
 
+        if (type.startsWith("mobile")) {
+            String path = dir + feature + "/"
+                    + ThreadProperty.get("feature") + "." + scenarioFolder + "/"  +
+                    scenario + ts.toString() + uniqueSuffix;
+            return path.replaceAll(" ", "_");
+        }
+
+        return dir + feature + "/" + scenarioFolder + "/" + currentBrowser + "-" + ts + uniqueSuffix;
     }
 
     private File adjustLastCapture(Integer newTrailingImageHeight,
@@ -935,6 +973,30 @@ public class CommonG {
         return temp;
     }
 
+    /**
+     * Takes a screenshot of the browser. For android browsers (android/droidemu), the whole page is
+     * captured by scrolling and stitching several screenshots
+     *
+     * @param driver driver
+     * @return screenshot in png format
+     * @throws IOException if the stitched screenshot could not be read
+     */
+    public byte[] takeScreenshot(WebDriver driver) throws IOException {
+        String currentBrowser = ThreadProperty.get("browser", "default");
+        if (currentBrowser.startsWith("android")
+                || currentBrowser.startsWith("droidemu")) {
+            Actions actions = new Actions(driver);
+            actions.keyDown(Keys.CONTROL).sendKeys(Keys.HOME).perform();
+            actions.keyUp(Keys.CONTROL).perform();
+
+            File file = chromeFullScreenCapture(driver);
+            byte[] screenshot = FileUtils.readFileToByteArray(file);
+            file.delete();
+            return screenshot;
+        }
+        return ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+    }
+
     private File chromeFullScreenCapture(WebDriver driver) {
         driver.switchTo().defaultContent();
         // scroll loop n times to get the whole page if browser is chrome
@@ -1207,31 +1269,38 @@ public class CommonG {
             this.getRestRequest().given().log().all();
         }
 
-        switch (requestType) {
-            case "GET":
-                this.setRestResponse(this.getRestRequest().when().get());
-                break;
+        BackendInstrumentation.Measurement measurement = this.startRestMeasurement(requestType);
+        try {
+            switch (requestType) {
+                case "GET":
+                    this.setRestResponse(this.getRestRequest().when().get());
+                    break;
 
-            case "POST":
-                this.setRestResponse(this.getRestRequest().when().post());
-                break;
+                case "POST":
+                    this.setRestResponse(this.getRestRequest().when().post());
+                    break;
 
-            case "PUT":
-                this.setRestResponse(this.getRestRequest().when().put());
-                break;
+                case "PUT":
+                    this.setRestResponse(this.getRestRequest().when().put());
+                    break;
 
-            case "DELETE":
-                this.setRestResponse(this.getRestRequest().when().delete());
-                break;
+                case "DELETE":
+                    this.setRestResponse(this.getRestRequest().when().delete());
+                    break;
 
-            case "PATCH":
-                this.setRestResponse(this.getRestRequest().when().patch());
-                break;
+                case "PATCH":
+                    this.setRestResponse(this.getRestRequest().when().patch());
+                    break;
 
-            default:
-                Assertions.fail("Operation not implemented: " + requestType);
+                default:
+                    Assertions.fail("Operation not implemented: " + requestType);
 
+            }
+        } catch (RuntimeException | AssertionError e) {
+            measurement.failed(e);
+            throw e;
         }
+        measurement.succeeded(BackendInstrumentation.sizeOf(this.getRestResponse().asByteArray()));
 
         if (this.getLogger().isDebugEnabled()) {
             this.getRestResponse().then().log().all();
@@ -1239,6 +1308,17 @@ public class CommonG {
 
     }
 
+    private BackendInstrumentation.Measurement startRestMeasurement(String requestType) {
+        String target = this.getRestHost() + ":" + this.getRestPort();
+        long requestBytes = 0;
+        if (this.getRestRequest() instanceof FilterableRequestSpecification) {
+            FilterableRequestSpecification request = (FilterableRequestSpecification) this.getRestRequest();
+            target = request.getBaseUri() + ":" + request.getPort();
+            requestBytes = BackendInstrumentation.sizeOf(request.<Object>getBody());
+        }
+        return BackendInstrumentation.start("rest", target, requestType, requestBytes);
+    }
+
     /**
      * Saves the value in the attribute in class extending CommonG.
      *
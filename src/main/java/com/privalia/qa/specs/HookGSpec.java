@@ -17,10 +17,14 @@
 package com.privalia.qa.specs;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.privalia.qa.lookups.FakerLookUp;
+import com.privalia.qa.utils.ClientRegistry;
+import com.privalia.qa.utils.FailureArtifacts;
 import com.privalia.qa.utils.JiraConnector;
 import com.privalia.qa.utils.RunOnEnvTag;
 import com.privalia.qa.utils.SlackConnector;
 import com.privalia.qa.utils.ThreadProperty;
+import com.privalia.qa.utils.WebDriverPool;
 import com.slack.api.methods.SlackApiException;
 import com.slack.api.methods.response.chat.ChatPostMessageResponse;
 import io.appium.java_client.MobileDriver;
@@ -125,6 +129,8 @@ public class HookGSpec extends BaseGSpec {
         /* Sets feature and scenario variables (these are used to create the appropriate folders/filename when takin an screenshot)*/
         ThreadProperty.set("feature", FilenameUtils.getName(scenario.getUri().getPath()));
         ThreadProperty.set("scenario", scenario.getName());
+        ThreadProperty.set("scenarioLine", String.valueOf(scenario.getLine()));
+        FakerLookUp.startScenario(scenario.getUri() + ":" + scenario.getLine());
 
         /*Get list of tags present in the Scenario*/
         Collection<String> tags = scenario.getSourceTagNames();
@@ -169,6 +175,7 @@ public class HookGSpec extends BaseGSpec {
         }
 
         MutableCapabilities mutableCapabilities = null;
+        WebDriverPool.DriverFactory localDriver = null;
         ObjectMapper mapper = new ObjectMapper();
         boolean isLocal = ((System.getProperty("SELENIUM_GRID") != null) ? false : true);
         String[] arguments = System.getProperty("SELENIUM_ARGUMENTS", "--ignore-certificate-errors;--no-sandbox").split(";");
@@ -188,8 +195,10 @@ public class HookGSpec extends BaseGSpec {
 
                 if (isLocal) {
                     System.setProperty("webdriver.chrome.silentOutput", "true"); //removes logging messages
-                    WebDriverManager.chromedriver().setup();
-                    driver = new ChromeDriver(chromeOptions);
+                    localDriver = () -> {
+                        WebDriverManager.chromedriver().setup();
+                        return new ChromeDriver(chromeOptions);
+                    };
                 }
 
                 break;
@@ -206,8 +215,10 @@ public class HookGSpec extends BaseGSpec {
 
                 if (isLocal) {
                     System.setProperty("webdriver.opera.silentOutput", "true"); //removes logging messages
-                    WebDriverManager.operadriver().setup();
-                    driver = new OperaDriver(operaOptions);
+                    localDriver = () -> {
+                        WebDriverManager.operadriver().setup();
+                        return new OperaDriver(operaOptions);
+                    };
                 }
 
                 break;
@@ -223,8 +234,10 @@ public class HookGSpec extends BaseGSpec {
                 if (isLocal) {
                     EdgeOptions edgeOptions = new EdgeOptions();
                     System.setProperty("webdriver.edge.silentOutput", "true"); //removes logging messages
-                    WebDriverManager.edgedriver().setup();
-                    driver = new EdgeDriver(edgeOptions);
+                    localDriver = () -> {
+                        WebDriverManager.edgedriver().setup();
+                        return new EdgeDriver(edgeOptions);
+                    };
                 }
                 break;
 
@@ -239,8 +252,10 @@ public class HookGSpec extends BaseGSpec {
                     InternetExplorerOptions ieOptions = new InternetExplorerOptions();
                     System.setProperty("webdriver.edge.silentOutput", "true"); //removes logging messages
                     ieOptions.setCapability("ignoreZoomSetting", true);
-                    WebDriverManager.iedriver().setup();
-                    driver = new InternetExplorerDriver(ieOptions);
+                    localDriver = () -> {
+                        WebDriverManager.iedriver().setup();
+                        return new InternetExplorerDriver(ieOptions);
+                    };
                 }
                 break;
 
@@ -257,8 +272,10 @@ public class HookGSpec extends BaseGSpec {
                 if (isLocal) {
                     System.setProperty(FirefoxDriver.SystemProperty.DRIVER_USE_MARIONETTE, "true"); //removes logging messages
                     System.setProperty(FirefoxDriver.SystemProperty.BROWSER_LOGFILE, "/dev/null");  //removes logging messages
-                    WebDriverManager.firefoxdriver().setup();
-                    driver = new FirefoxDriver(firefoxOptions);
+                    localDriver = () -> {
+                        WebDriverManager.firefoxdriver().setup();
+                        return new FirefoxDriver(firefoxOptions);
+                    };
                 }
 
                 break;
@@ -289,7 +306,7 @@ public class HookGSpec extends BaseGSpec {
 
                 if (isLocal) {
                     SafariOptions safariOptions = new SafariOptions();
-                    driver = new SafariDriver(safariOptions);
+                    localDriver = () -> new SafariDriver(safariOptions);
                 }
 
                 break;
@@ -307,7 +324,7 @@ public class HookGSpec extends BaseGSpec {
              * Execute the tests using a local browser
              */
             this.getCommonSpec().getLogger().debug("Setting local driver with capabilities {}", mutableCapabilities.toJson().toString());
-            commonspec.setDriver(driver);
+            commonspec.setDriver(this.createDriver(browserName + " local " + mutableCapabilities.toJson(), localDriver));
         } else {
             /**
              * The user can provide the variables "platform", "version" and "platformName" in case the default capabilities need to be changed
@@ -330,14 +347,34 @@ public class HookGSpec extends BaseGSpec {
             }
 
             this.getCommonSpec().getLogger().debug("Setting RemoteWebDriver with capabilities {}", mutableCapabilities.toJson().toString());
-            commonspec.setDriver(new RemoteWebDriver(new URL(System.getProperty("SELENIUM_GRID")), mutableCapabilities));
+            MutableCapabilities remoteCapabilities = mutableCapabilities;
+            URL grid = new URL(System.getProperty("SELENIUM_GRID"));
+            commonspec.setDriver(this.createDriver(browserName + " " + grid + " " + remoteCapabilities.toJson(), () -> new RemoteWebDriver(grid, remoteCapabilities)));
         }
 
+        driver = commonspec.getDriver();
+
         commonspec.getDriver().manage().timeouts().pageLoadTimeout(PAGE_LOAD_TIMEOUT, TimeUnit.SECONDS);
         commonspec.getDriver().manage().timeouts().implicitlyWait(IMPLICITLY_WAIT, TimeUnit.SECONDS);
         commonspec.getDriver().manage().timeouts().setScriptTimeout(SCRIPT_TIMEOUT, TimeUnit.SECONDS);
     }
 
+    /**
+     * Creates a new driver, or gets it from the {@link WebDriverPool} if the pool (-DWEBDRIVER_POOL=true)
+     * or the prewarm of sessions (-DWEBDRIVER_PREWARM=true) is enabled
+     *
+     * @param key     browser name and capabilities of the driver
+     * @param factory creates a new driver
+     * @return the driver
+     * @throws Exception if the driver could not be created
+     */
+    private WebDriver createDriver(String key, WebDriverPool.DriverFactory factory) throws Exception {
+        if (WebDriverPool.isEnabled() || WebDriverPool.isPrewarmEnabled()) {
+            return WebDriverPool.acquire(key, factory);
+        }
+        return factory.create();
+    }
+
     /**
      * If the feature has the @mobile annotation, creates a new Appium driver
      * before each scenario. By default, the system will try to create a set of default
@@ -477,31 +514,28 @@ public class HookGSpec extends BaseGSpec {
         if (commonspec.getDriver() != null) {
             try {
                 if (scenario.isFailed()) {
-                    //Include the page source in the report
-                    commonspec.getLogger().debug("Scenario failed. Adding page source to report");
-                    String source = driver.getPageSource();
-                    scenario.attach(source.getBytes(), "text/html", "Page source html");
+                    //Get the page source and screenshot only once, they are used for the report and the evidences
+                    commonspec.getLogger().debug("Scenario failed. Capturing page source and screenshot");
+                    FailureArtifacts artifacts = FailureArtifacts.capture(commonspec.getDriver(), commonspec.getDriver() instanceof MobileDriver, commonspec::takeScreenshot);
 
-                    //Include screenshot in the report
-                    commonspec.getLogger().debug("Adding screenshot to report");
-                    byte[] screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
-                    scenario.attach(screenshot, "image/png", "Screenshot");
+                    //Include the page source and screenshot in the report
+                    commonspec.getLogger().debug("Adding page source and screenshot to report");
+                    artifacts.attachTo(scenario);
 
-                    //Take screenshot and save it in the target/execution folder
+                    //Save them in the target/execution folder
                     commonspec.getLogger().debug("Adding screenshot target/execution folder");
-                    if (this.commonspec.getDriver() instanceof MobileDriver) {
-                        this.commonspec.captureEvidence(driver, "mobileScreenCapture", "exception");
-                        this.commonspec.captureEvidence(driver, "mobilePageSource", "exception");
-                    } else {
-                        this.commonspec.captureEvidence(driver, "framehtmlSource", "exception");
-                        this.commonspec.captureEvidence(driver, "htmlSource", "exception");
-                        this.commonspec.captureEvidence(driver, "screenCapture", "exception");
-                    }
+                    this.commonspec.captureEvidence(artifacts, "exception");
                 }
             } finally {
-                //Close the selenium driver
-                commonspec.getLogger().debug("Shutting down Selenium client");
-                commonspec.getDriver().quit();
+                if (WebDriverPool.isLeased(commonspec.getDriver())) {
+                    //Return the driver to the pool (failed scenarios do not reuse their browser, and it is closed if only prewarm is enabled)
+                    commonspec.getLogger().debug("Returning Selenium client to the pool");
+                    WebDriverPool.release(commonspec.getDriver(), scenario.isFailed());
+                } else {
+                    //Close the selenium driver
+                    commonspec.getLogger().debug("Shutting down Selenium client");
+                    commonspec.getDriver().quit();
+                }
             }
         }
     }
@@ -512,7 +546,7 @@ public class HookGSpec extends BaseGSpec {
      * its status based on the result of the scenario execution.
      * Checks if there's any reference to a Slack channel and sends a notification to that channel
      * if the scenario failed
-     * Closes any remaining SSH connection
+     * Closes any remaining SSH connection, and the clients created for the scenario (see {@link ClientRegistry})
      * @param scenario  Scenario
      * @throws SlackApiException    SlackApiException
      * @throws IOException          IOException
@@ -567,6 +601,8 @@ public class HookGSpec extends BaseGSpec {
             commonspec.getSqlClient().disconnect();
         }
 
+        commonspec.getClientRegistry().clearScenarioClients();
+
     }
 
     /**
@@ -555,12 +555,14 @@ public class UtilsGSpec extends BaseGSpec {
      * This allows the conditional execution of steps during runtime. All steps enclosed
      * between this step and {@link #ifStamenetEndBlock()} will be executed only if the given
      * statement returns true, otherwise, the steps will be skipped.
-     * The statement can be any javascript expression that can return a true|false output. You can even
-     * use variables created during the scenario execution.
+     * The statement is a boolean expression: literals, comparison and logical operators, arithmetic and the most
+     * common string methods (contains, startsWith, endsWith, matches, etc) are evaluated natively, and any other
+     * javascript expression is evaluated with the javascript engine (if there is one in the classpath). You can
+     * even use variables created during the scenario execution.
      * <p>
      * <b>Warning: use this functionality sparingly, or only in very concrete automation cases. We discourage
-     * the creation of tests that could return different results on different runs. Also, this functionality
-     * has not been tested on multi-threaded mode, so it may break when running tests in parallel</b>
+     * the creation of tests that could return different results on different runs. Blocks can be nested, and
+     * the state of the blocks is kept per scenario, so it is safe to use when running tests in parallel</b>
      * <br>
      * <pre>
      * {@code
@@ -578,7 +580,7 @@ public class UtilsGSpec extends BaseGSpec {
      * }
      * </pre>
      * @see #ifStamenetEndBlock()
-     * @param statement Any javascript expression that could be resolved to true or false
+     * @param statement Expression that could be resolved to true or false
      */
     @Given("^if \\((.*)\\) \\{$")
     public void ifStamenetBeginBlock(String statement) { }
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.utils;
+
+/**
+ * A finished call to a backend
+ *
+ * @author Jose Fernandez
+ */
+public final class BackendCall {
+
+    private final String backend;
+
+    private final String target;
+
+    private final String operation;
+
+    private final long durationNanos;
+
+    private final long requestBytes;
+
+    private final long responseBytes;
+
+    private final Throwable error;
+
+    BackendCall(String backend, String target, String operation, long durationNanos, long requestBytes, long responseBytes, Throwable error) {
+        this.backend = backend;
+        this.target = target;
+        this.operation = operation;
+        this.durationNanos = durationNanos;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+        this.error = error;
+    }
+
+    /**
+     * @return type of backend (sql, rest, kafka, ssh, cassandra, mongodb, elasticsearch)
+     */
+    public String getBackend() {
+        return backend;
+    }
+
+    /**
+     * @return server that received the call (and the database, topic or index, if any)
+     */
+    public String getTarget() {
+        return target;
+    }
+
+    /**
+     * @return name of the operation (select, update, GET, send, ...)
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return duration of the call in nanoseconds
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @return size of the payload sent, in bytes ({@link BackendInstrumentation#UNKNOWN_SIZE} if unknown)
+     */
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    /**
+     * @return size of the payload received, in bytes ({@link BackendInstrumentation#UNKNOWN_SIZE} if unknown, 0 if the call failed)
+     */
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    /**
+     * @return the error thrown by the call, or null if the call succeeded
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * @return true if the call failed
+     */
+    public boolean isFailed() {
+        return error != null;
+    }
+
+    @Override
+    public String toString() {
+        return backend + " " + operation + " " + target + " (" + durationNanos + "ns" + (error != null ? ", failed" : "") + ")";
+    }
+}
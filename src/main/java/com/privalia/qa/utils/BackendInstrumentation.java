@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.ToLongFunction;
+
+/**
+ * Measures the calls made to the backends, and notifies them to the registered {@link BackendListener}.
+ * <p>
+ * The latency, size of the payloads and errors of every call are always recorded in {@link #getMetrics()},
+ * grouped by backend, target and operation. Other listeners can be added with {@link #addListener(BackendListener)}
+ * or declared as services (META-INF/services/com.privalia.qa.utils.BackendListener)
+ *
+ * @author Jose Fernandez
+ */
+public final class BackendInstrumentation {
+
+    /**
+     * Size of a payload that could not be calculated
+     */
+    public static final long UNKNOWN_SIZE = -1L;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BackendInstrumentation.class);
+
+    private static final BackendMetrics METRICS = new BackendMetrics();
+
+    private static final List<BackendListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    static {
+        LISTENERS.add(METRICS);
+        try {
+            for (BackendListener listener : ServiceLoader.load(BackendListener.class)) {
+                LISTENERS.add(listener);
+            }
+        } catch (ServiceConfigurationError e) {
+            LOGGER.warn("Could not load backend listeners: {}", e.getMessage());
+        }
+    }
+
+    private BackendInstrumentation() {
+    }
+
+    /**
+     * Returns the metrics of all the calls made
+     *
+     * @return backend metrics
+     */
+    public static BackendMetrics getMetrics() {
+        return METRICS;
+    }
+
+    /**
+     * Adds a listener to be notified of every call
+     *
+     * @param listener the listener
+     */
+    public static void addListener(BackendListener listener) {
+        LISTENERS.add(listener);
+    }
+
+    /**
+     * Removes a listener
+     *
+     * @param listener the listener
+     */
+    public static void removeListener(BackendListener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * Starts measuring a call. {@link Measurement#succeeded(long)} or {@link Measurement#failed(Throwable)}
+     * must be invoked when the call finishes
+     *
+     * @param backend      type of backend
+     * @param target       server that receives the call
+     * @param operation    name of the operation
+     * @param requestBytes size of the payload sent
+     * @return the measurement
+     */
+    public static Measurement start(String backend, String target, String operation, long requestBytes) {
+        return new Measurement(backend, target, operation, requestBytes);
+    }
+
+    /**
+     * Executes and measures a call that returns a value
+     *
+     * @param backend      type of backend
+     * @param target       server that receives the call
+     * @param operation    name of the operation
+     * @param requestBytes size of the payload sent
+     * @param call         the call
+     * @param <T>          type of the result
+     * @param <E>          type of the exception thrown by the call
+     * @return the result of the call
+     * @throws E the exception thrown by the call
+     */
+    public static <T, E extends Exception> T call(String backend, String target, String operation, long requestBytes, Call<T, E> call) throws E {
+        return call(backend, target, operation, requestBytes, call, null);
+    }
+
+    /**
+     * Executes and measures a call that returns a value
+     *
+     * @param backend       type of backend
+     * @param target        server that receives the call
+     * @param operation     name of the operation
+     * @param requestBytes  size of the payload sent
+     * @param call          the call
+     * @param responseBytes function that returns the size of the payload received from the result of the call (if null,
+     *                      the size is {@link #UNKNOWN_SIZE})
+     * @param <T>           type of the result
+     * @param <E>           type of the exception thrown by the call
+     * @return the result of the call
+     * @throws E the exception thrown by the call
+     */
+    public static <T, E extends Exception> T call(String backend, String target, String operation, long requestBytes,
+                                                  Call<T, E> call, ToLongFunction<? super T> responseBytes) throws E {
+        Measurement measurement = start(backend, target, operation, requestBytes);
+        T result;
+        try {
+            result = call.call();
+        } catch (Throwable e) {
+            measurement.failed(e);
+            throw e;
+        }
+        if (result == null) {
+            measurement.succeeded(0L);
+        } else {
+            measurement.succeeded(responseBytes == null ? UNKNOWN_SIZE : sizeOf(result, responseBytes));
+        }
+        return result;
+    }
+
+    /**
+     * Executes and measures a call that does not return a value
+     *
+     * @param backend      type of backend
+     * @param target       server that receives the call
+     * @param operation    name of the operation
+     * @param requestBytes size of the payload sent
+     * @param task         the call
+     * @param <E>          type of the exception thrown by the call
+     * @throws E the exception thrown by the call
+     */
+    public static <E extends Exception> void run(String backend, String target, String operation, long requestBytes, Task<E> task) throws E {
+        Measurement measurement = start(backend, target, operation, requestBytes);
+        try {
+            task.run();
+        } catch (Throwable e) {
+            measurement.failed(e);
+            throw e;
+        }
+        measurement.succeeded(0L);
+    }
+
+    /**
+     * Returns the size in bytes of the given payload: the length of byte arrays, or the length of the
+     * UTF-8 encoding of strings. The size of any other object is the length of its string representation,
+     * which can be expensive (i.e. documents or records), so it is only calculated when a listener other
+     * than the built-in metrics is registered ({@link #UNKNOWN_SIZE} otherwise)
+     *
+     * @param payload the payload
+     * @return size in bytes (0 if null)
+     */
+    public static long sizeOf(Object payload) {
+        if (payload == null) {
+            return 0L;
+        }
+        if (payload instanceof byte[]) {
+            return ((byte[]) payload).length;
+        }
+        if (payload instanceof CharSequence) {
+            return utf8Length((CharSequence) payload);
+        }
+        if (LISTENERS.size() <= 1) {
+            return UNKNOWN_SIZE;
+        }
+        return utf8Length(payload.toString());
+    }
+
+    /**
+     * Returns the total size in bytes of the given payloads (see {@link #sizeOf(Object)})
+     *
+     * @param payloads the payloads
+     * @return size in bytes, or {@link #UNKNOWN_SIZE} if the size of any of the payloads is unknown
+     */
+    public static long sizeOfAll(Iterable<?> payloads) {
+        long size = 0;
+        for (Object payload : payloads) {
+            long payloadSize = sizeOf(payload);
+            if (payloadSize == UNKNOWN_SIZE) {
+                return UNKNOWN_SIZE;
+            }
+            size += payloadSize;
+        }
+        return size;
+    }
+
+    private static long utf8Length(CharSequence text) {
+        long length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static <T> long sizeOf(T result, ToLongFunction<? super T> responseBytes) {
+        try {
+            return responseBytes.applyAsLong(result);
+        } catch (RuntimeException e) {
+            LOGGER.debug("Could not calculate the size of the response: {}", e.getMessage());
+            return UNKNOWN_SIZE;
+        }
+    }
+
+    private static void publish(BackendCall call) {
+        for (BackendListener listener : LISTENERS) {
+            try {
+                listener.onCall(call);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Backend listener {} failed: {}", listener.getClass().getName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A call to a backend that returns a value
+     *
+     * @param <T> type of the result
+     * @param <E> type of the exception thrown
+     */
+    @FunctionalInterface
+    public interface Call<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    /**
+     * A call to a backend that does not return a value
+     *
+     * @param <E> type of the exception thrown
+     */
+    @FunctionalInterface
+    public interface Task<E extends Exception> {
+        void run() throws E;
+    }
+
+    /**
+     * A call being measured
+     */
+    public static final class Measurement {
+
+        private final String backend;
+
+        private final String target;
+
+        private final String operation;
+
+        private final long requestBytes;
+
+        private final long start = System.nanoTime();
+
+        private Measurement(String backend, String target, String operation, long requestBytes) {
+            this.backend = String.valueOf(backend);
+            this.target = String.valueOf(target);
+            this.operation = String.valueOf(operation);
+            this.requestBytes = requestBytes;
+        }
+
+        /**
+         * Finishes the measurement of a successful call
+         *
+         * @param responseBytes size of the payload received, or {@link #UNKNOWN_SIZE}
+         */
+        public void succeeded(long responseBytes) {
+            publish(new BackendCall(backend, target, operation, System.nanoTime() - start, requestBytes, responseBytes, null));
+        }
+
+        /**
+         * Finishes the measurement of a failed call
+         *
+         * @param error the error thrown
+         */
+        public void failed(Throwable error) {
+            publish(new BackendCall(backend, target, operation, System.nanoTime() - start, requestBytes, 0L, error));
+        }
+    }
+}
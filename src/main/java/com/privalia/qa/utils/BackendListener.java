@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.utils;
+
+/**
+ * Receives the calls made to the backends (SQL databases, REST APIs, Kafka, SSH, Cassandra, MongoDB
+ * and Elasticsearch) once they finish.
+ * <p>
+ * Listeners can be registered with {@link BackendInstrumentation#addListener(BackendListener)}, or
+ * declared in META-INF/services/com.privalia.qa.utils.BackendListener to be loaded automatically.
+ * Listeners are invoked in the thread that made the call, so they must be thread safe and fast
+ *
+ * @author Jose Fernandez
+ */
+public interface BackendListener {
+
+    /**
+     * Invoked after each call to a backend
+     *
+     * @param call the finished call
+     */
+    void onCall(BackendCall call);
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency, size of the payloads and errors of the calls made to the backends, grouped by backend,
+ * target and operation. See {@link BackendInstrumentation#getMetrics()}
+ *
+ * @author Jose Fernandez
+ */
+public final class BackendMetrics implements BackendListener {
+
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    BackendMetrics() {
+    }
+
+    @Override
+    public void onCall(BackendCall call) {
+        String key = call.getBackend() + '\0' + call.getTarget() + '\0' + call.getOperation();
+        Endpoint endpoint = endpoints.computeIfAbsent(key, k -> new Endpoint(call.getBackend(), call.getTarget(), call.getOperation()));
+        endpoint.latency.record(call.getDurationNanos());
+        endpoint.requestBytes.add(call.getRequestBytes());
+        endpoint.responseBytes.add(call.getResponseBytes());
+        if (call.isFailed()) {
+            endpoint.errors.increment();
+        }
+    }
+
+    /**
+     * Returns the metrics recorded so far, sorted by backend, target and operation
+     *
+     * @return metrics of each backend, target and operation
+     */
+    public List<Endpoint> getEndpoints() {
+        List<Endpoint> result = new ArrayList<>(endpoints.values());
+        result.sort(Comparator.comparing(Endpoint::getBackend).thenComparing(Endpoint::getTarget).thenComparing(Endpoint::getOperation));
+        return result;
+    }
+
+    /**
+     * Removes all the recorded metrics
+     */
+    public void reset() {
+        endpoints.clear();
+    }
+
+    /**
+     * Metrics of an operation over a backend target
+     */
+    public static final class Endpoint {
+
+        private final String backend;
+
+        private final String target;
+
+        private final String operation;
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private final Bytes requestBytes = new Bytes();
+
+        private final Bytes responseBytes = new Bytes();
+
+        private final LongAdder errors = new LongAdder();
+
+        Endpoint(String backend, String target, String operation) {
+            this.backend = backend;
+            this.target = target;
+            this.operation = operation;
+        }
+
+        public String getBackend() {
+            return backend;
+        }
+
+        public String getTarget() {
+            return target;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        /**
+         * @return latencies of the calls (failed calls included)
+         */
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        /**
+         * @return size of the payloads sent (of the calls with a known size), or {@link BackendInstrumentation#UNKNOWN_SIZE}
+         *         if the size is not known for any call
+         */
+        public long getRequestBytes() {
+            return requestBytes.sum();
+        }
+
+        /**
+         * @return size of the payloads received (of the calls with a known size), or {@link BackendInstrumentation#UNKNOWN_SIZE}
+         *         if the size is not known for any call
+         */
+        public long getResponseBytes() {
+            return responseBytes.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+    }
+
+    /**
+     * Total size of payloads, ignoring the ones with an unknown size
+     */
+    private static final class Bytes {
+
+        private final LongAdder total = new LongAdder();
+
+        private final LongAdder known = new LongAdder();
+
+        void add(long bytes) {
+            if (bytes != BackendInstrumentation.UNKNOWN_SIZE) {
+                total.add(bytes);
+                known.increment();
+            }
+        }
+
+        long sum() {
+            return known.sum() == 0 ? BackendInstrumentation.UNKNOWN_SIZE : total.sum();
+        }
+    }
+}
@@ -16,9 +16,13 @@
 
 package com.privalia.qa.utils;
 
+import com.google.common.primitives.Ints;
 import com.privalia.qa.cucumber.testng.CucumberOptionsImpl;
+import com.privalia.qa.cucumber.testng.ParallelExecutionTransformer;
 import io.cucumber.testng.AbstractTestNGCucumberTests;
 import io.cucumber.testng.CucumberOptions;
+import io.cucumber.testng.FeatureWrapper;
+import io.cucumber.testng.PickleWrapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.ITestContext;
@@ -28,7 +32,13 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Semaphore;
 
 /**
  * This is a custom implementation of {@link AbstractTestNGCucumberTests} for adding special configuration
@@ -37,10 +47,18 @@ import java.util.Map;
  * Test classes must extend this class in order to be executed with TestNG and use the Gingerspec steps
  * and other functionality
  *
+ * Scenarios can be executed in parallel using -DPARALLEL=true (and optionally -DPARALLEL_THREADS=n).
+ * The amount of scenarios with a given tag that can run at the same time can be limited using
+ * PARALLEL_LIMITS, for example -DPARALLEL_LIMITS="@web:4,@rest:16,@sql:2"
+ *
  * @author Jose Fernandez
  */
 abstract public class BaseGTest extends AbstractTestNGCucumberTests {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(BaseGTest.class);
+
+    private static final Map<String, Semaphore> TAG_LIMITS = parseTagLimits(System.getProperty("PARALLEL_LIMITS", ""));
+
     private final Logger logger = LoggerFactory.getLogger(this.getClass().getCanonicalName());
 
     @BeforeSuite(alwaysRun = true)
@@ -105,6 +123,93 @@ abstract public class BaseGTest extends AbstractTestNGCucumberTests {
 
     }
 
+    /**
+     * Overrides the parent method {@link AbstractTestNGCucumberTests#scenarios()} so the data provider
+     * can be marked as parallel by {@link ParallelExecutionTransformer}
+     *
+     * @return two dimensional array of {@link PickleWrapper} scenarios
+     */
+    @Override
+    @DataProvider
+    public Object[][] scenarios() {
+        return super.scenarios();
+    }
+
+    /**
+     * Overrides the parent method {@link AbstractTestNGCucumberTests#runScenario(PickleWrapper, FeatureWrapper)}.
+     * In parallel mode, the scenario waits until there are free slots for all its tags that have a
+     * concurrency limit defined in PARALLEL_LIMITS
+     *
+     * @param pickleWrapper  scenario
+     * @param featureWrapper feature containing the scenario
+     */
+    @Override
+    @Test(groups = "cucumber", description = "Runs Cucumber Scenarios", dataProvider = "scenarios")
+    public void runScenario(PickleWrapper pickleWrapper, FeatureWrapper featureWrapper) {
+        ThreadProperty.set("class", this.getClass().getCanonicalName());
+
+        if (!ParallelExecutionTransformer.isParallelEnabled()) {
+            super.runScenario(pickleWrapper, featureWrapper);
+            return;
+        }
+
+        List<Semaphore> acquired = new ArrayList<>();
+        try {
+            /*Tags are sorted so the semaphores are always acquired in the same order (avoids deadlocks)*/
+            for (String tag : new TreeSet<>(pickleWrapper.getPickle().getTags())) {
+                Semaphore semaphore = getTagLimit(tag);
+                if (semaphore != null) {
+                    semaphore.acquireUninterruptibly();
+                    acquired.add(semaphore);
+                }
+            }
+            super.runScenario(pickleWrapper, featureWrapper);
+        } finally {
+            for (Semaphore semaphore : acquired) {
+                semaphore.release();
+            }
+        }
+    }
+
+    /**
+     * Returns the semaphore that limits the concurrent executions of the given tag, or null
+     * if the tag has no limit configured in PARALLEL_LIMITS
+     *
+     * @param tag scenario tag (i.e. @web)
+     * @return semaphore for the tag, or null
+     */
+    private static Semaphore getTagLimit(String tag) {
+        return TAG_LIMITS.get(normalizeTag(tag));
+    }
+
+    /**
+     * Parses the concurrency limits per tag (i.e. @web:4,@rest:16). Invalid entries are logged and ignored
+     *
+     * @param limits value of PARALLEL_LIMITS
+     * @return semaphore for every tag with a limit, by tag name (without @)
+     */
+    static Map<String, Semaphore> parseTagLimits(String limits) {
+        Map<String, Semaphore> semaphores = new HashMap<>();
+        for (String limit : limits.split(",")) {
+            if (limit.trim().isEmpty()) {
+                continue;
+            }
+            String[] parts = limit.trim().split(":");
+            String tag = normalizeTag(parts[0].trim());
+            Integer permits = parts.length == 2 ? Ints.tryParse(parts[1].trim()) : null;
+            if (tag.isEmpty() || permits == null || permits <= 0) {
+                LOGGER.warn("Ignoring invalid entry '{}' in PARALLEL_LIMITS, the expected format is @tag:limit", limit.trim());
+                continue;
+            }
+            semaphores.put(tag, new Semaphore(permits, true));
+        }
+        return Collections.unmodifiableMap(semaphores);
+    }
+
+    private static String normalizeTag(String tag) {
+        return tag.startsWith("@") ? tag.substring(1) : tag;
+    }
+
     /**
      * Method executed before a test class.
      *
@@ -140,4 +245,14 @@ abstract public class BaseGTest extends AbstractTestNGCucumberTests {
     public void afterGClass() {
     }
 
+    /**
+     * Closes the clients created in thread scope (see {@link ClientRegistry}) by the current thread and
+     * by the worker threads that executed the scenarios in parallel
+     */
+    @AfterClass(alwaysRun = true)
+    public void closeThreadClients() {
+        ClientRegistry.clearThreadClients();
+        ClientRegistry.clearFinishedThreadClients();
+    }
+
 }
@@ -34,7 +34,7 @@ import java.util.Map;
 /**
  * Generic utilities for operations over Cassandra.
  */
-public class CassandraUtils {
+public class CassandraUtils implements AutoCloseable {
 
     private static final Logger LOGGER = LoggerFactory
             .getLogger(CassandraUtils.class);
@@ -76,7 +76,7 @@ public class CassandraUtils {
      * @return ResultSet result set
      */
     public ResultSet executeQuery(String query) {
-        return this.session.execute(query);
+        return BackendInstrumentation.call("cassandra", this.host, "query", BackendInstrumentation.sizeOf(query), () -> this.session.execute(query));
     }
 
     /**
@@ -87,7 +87,7 @@ public class CassandraUtils {
     public void executeQueriesList(List<String> queriesList) {
 
         for (String query : queriesList) {
-            this.session.execute(query);
+            this.executeQuery(query);
         }
     }
 
@@ -117,6 +117,20 @@ public class CassandraUtils {
         this.cluster.close();
     }
 
+    /**
+     * Closes the connection, if it is open. Used by {@link ClientRegistry} to release the clients
+     * created for a thread or a scenario
+     */
+    @Override
+    public void close() {
+        if (this.session != null && !this.session.isClosed()) {
+            this.session.close();
+        }
+        if (this.cluster != null && !this.cluster.isClosed()) {
+            this.cluster.close();
+        }
+    }
+
     /**
      * Get the metadata of the Cassandra Cluster.
      *
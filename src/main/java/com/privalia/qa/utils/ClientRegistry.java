@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Registry of the backend clients (SQL, Kafka, Cassandra, MongoDB, etc) used by the steps.
+ *
+ * The scope of the clients is controlled with the system property CLIENT_SCOPE:
+ * <ul>
+ *     <li>global (default): one instance per JVM, the same ones returned by the enum singletons ({@link SqlUtil}, {@link KafkaUtil}, ...)</li>
+ *     <li>thread: one instance per thread. Scenarios running in parallel threads do not share connections or state</li>
+ *     <li>scenario: one instance per registry. Since {@link com.privalia.qa.specs.CommonG} creates its own registry, this is one instance per scenario</li>
+ * </ul>
+ *
+ * Thread clients are closed when the runner class finishes (see {@link BaseGTest}), and scenario clients when
+ * the scenario finishes, if they are {@link AutoCloseable}
+ *
+ * New client types (or replacements of the default ones) can be added using {@link #register(Class, Supplier)}
+ *
+ * @author Jose Fernandez
+ */
+public class ClientRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClientRegistry.class);
+
+    private static final Map<Class<?>, Supplier<?>> FACTORIES = new ConcurrentHashMap<>();
+
+    private static final Map<Class<?>, Object> GLOBAL_CLIENTS = new ConcurrentHashMap<>();
+
+    /*Clients by thread, the clients of the threads that have finished are closed by clearFinishedThreadClients()*/
+    private static final Map<Thread, Map<Class<?>, Object>> THREAD_CLIENTS = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, Object> scenarioClients = new HashMap<>();
+
+    private final Scope scope;
+
+    static {
+        register(CassandraUtils.class, CassandraUtils::new);
+        register(ElasticSearchUtils.class, ElasticSearchUtils::new);
+        register(KafkaUtils.class, KafkaUtils::new);
+        register(MongoDBUtils.class, MongoDBUtils::new);
+        register(SqlUtils.class, SqlUtils::new);
+        register(SwaggerUtils.class, SwaggerUtils::new);
+        register(GraphQlUtils.class, GraphQlUtils::new);
+        register(SoapServiceUtils.class, SoapServiceUtils::new);
+        register(FileParserUtils.class, FileParserUtils::new);
+        register(ZookeeperSecUtils.class, ZookeeperSecUtils::new);
+
+        /*In global scope, keep returning the same instances as the enum singletons*/
+        GLOBAL_CLIENTS.put(CassandraUtils.class, CassandraUtil.INSTANCE.getCassandraUtils());
+        GLOBAL_CLIENTS.put(ElasticSearchUtils.class, ElasticSearchUtil.INSTANCE.getElasticSearchUtils());
+        GLOBAL_CLIENTS.put(KafkaUtils.class, KafkaUtil.INSTANCE.getKafkaUtils());
+        GLOBAL_CLIENTS.put(MongoDBUtils.class, MongoDBUtil.INSTANCE.getMongoDBUtils());
+        GLOBAL_CLIENTS.put(SqlUtils.class, SqlUtil.INSTANCE.getSqlUtils());
+        GLOBAL_CLIENTS.put(SwaggerUtils.class, SwaggerUtil.INSTANCE.getSwaggerUtils());
+        GLOBAL_CLIENTS.put(GraphQlUtils.class, GraphQlUtil.INSTANCE.getGraphQlUtils());
+        GLOBAL_CLIENTS.put(SoapServiceUtils.class, SoapServiceUtil.INSTANCE.getSoapServiceUtils());
+        GLOBAL_CLIENTS.put(FileParserUtils.class, FileParserUtil.INSTANCE.getFileParserUtils());
+        GLOBAL_CLIENTS.put(ZookeeperSecUtils.class, ZookeeperSecUtil.INSTANCE.getZookeeperSecUtils());
+    }
+
+    /**
+     * Scope of the clients returned by the registry
+     */
+    public enum Scope {
+        GLOBAL, THREAD, SCENARIO;
+
+        /**
+         * Returns the scope configured with the system property CLIENT_SCOPE (global by default)
+         *
+         * @return the configured scope
+         */
+        public static Scope fromSystemProperty() {
+            String value = System.getProperty("CLIENT_SCOPE", "global");
+            try {
+                return Scope.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                LOGGER.warn("Unknown value for CLIENT_SCOPE '{}', using 'global'", value);
+                return GLOBAL;
+            }
+        }
+    }
+
+    /**
+     * Default constructor. Uses the scope given by the system property CLIENT_SCOPE
+     */
+    public ClientRegistry() {
+        this(Scope.fromSystemProperty());
+    }
+
+    /**
+     * Creates a registry with the given scope
+     *
+     * @param scope scope of the clients
+     */
+    public ClientRegistry(Scope scope) {
+        this.scope = scope;
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * Registers the factory used to create new instances of the given client type. Registering
+     * a factory for an existing type replaces the default implementation. In global scope, the
+     * already created instance (if any) is discarded
+     *
+     * @param type    class of the client
+     * @param factory factory that creates a new client
+     * @param <T>     client type
+     */
+    public static <T> void register(Class<T> type, Supplier<? extends T> factory) {
+        FACTORIES.put(type, factory);
+        GLOBAL_CLIENTS.remove(type);
+    }
+
+    /**
+     * Returns the client of the given type for the current scope, creating it if necessary
+     *
+     * @param type class of the client
+     * @param <T>  client type
+     * @return the client instance
+     */
+    public <T> T get(Class<T> type) {
+        switch (scope) {
+            case THREAD:
+                return type.cast(THREAD_CLIENTS.computeIfAbsent(Thread.currentThread(), t -> new ConcurrentHashMap<>())
+                        .computeIfAbsent(type, ClientRegistry::create));
+            case SCENARIO:
+                synchronized (scenarioClients) {
+                    return type.cast(scenarioClients.computeIfAbsent(type, ClientRegistry::create));
+                }
+            default:
+                return type.cast(GLOBAL_CLIENTS.computeIfAbsent(type, ClientRegistry::create));
+        }
+    }
+
+    /**
+     * Discards the clients created for the current thread, closing the ones that are {@link AutoCloseable}.
+     * Useful when threads are reused by a pool and the clients should not survive between tests
+     */
+    public static void clearThreadClients() {
+        Map<Class<?>, Object> clients = THREAD_CLIENTS.remove(Thread.currentThread());
+        if (clients != null) {
+            close(clients.values());
+        }
+    }
+
+    /**
+     * Discards the clients created by threads that are no longer alive (i.e. the workers of the parallel
+     * execution, once all the scenarios of the runner class have finished), closing the ones that are
+     * {@link AutoCloseable}
+     */
+    public static void clearFinishedThreadClients() {
+        for (Thread thread : THREAD_CLIENTS.keySet()) {
+            if (!thread.isAlive()) {
+                Map<Class<?>, Object> clients = THREAD_CLIENTS.remove(thread);
+                if (clients != null) {
+                    close(clients.values());
+                }
+            }
+        }
+    }
+
+    /**
+     * Discards the clients created by this registry in scenario scope, closing the ones that
+     * are {@link AutoCloseable}
+     */
+    public void clearScenarioClients() {
+        List<Object> clients;
+        synchronized (scenarioClients) {
+            clients = new ArrayList<>(scenarioClients.values());
+            scenarioClients.clear();
+        }
+        close(clients);
+    }
+
+    private static void close(Collection<?> clients) {
+        for (Object client : clients) {
+            if (client instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) client).close();
+                } catch (Exception e) {
+                    LOGGER.warn("Could not close client {}: {}", client.getClass().getName(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static Object create(Class<?> type) {
+        Supplier<?> factory = FACTORIES.get(type);
+        if (factory == null) {
+            throw new IllegalArgumentException("No client registered for type " + type.getName());
+        }
+        return factory.get();
+    }
+}
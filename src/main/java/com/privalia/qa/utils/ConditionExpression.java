@@ -0,0 +1,578 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.utils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * Compiled boolean expression, used to evaluate the conditions of the if blocks without
+ * a javascript engine.
+ *
+ * The supported syntax is a subset of javascript/java expressions:
+ * <ul>
+ *     <li>Literals: numbers, strings ('text' or "text"), true, false and null</li>
+ *     <li>Operators: || &amp;&amp; ! == != === !== &lt; &lt;= &gt; &gt;= + - * / % and parenthesis</li>
+ *     <li>String methods: contains, includes, startsWith, endsWith, equals, equalsIgnoreCase, matches,
+ *     indexOf, toUpperCase, toLowerCase, trim, isEmpty, length() and the length property</li>
+ *     <li>Placeholders: ${VAR}, inside or outside string literals. They are resolved on each evaluation.
+ *     Outside string literals, the value is used as a sub-expression (as if it was written in the expression)</li>
+ * </ul>
+ *
+ * Expressions are compiled only once and cached by their text, see {@link #compile(String)}. Expressions
+ * that are not valid are cached too, so they are not parsed again
+ *
+ * @author Jose Fernandez
+ */
+public final class ConditionExpression {
+
+    private static final int CACHE_SIZE = 1000;
+
+    private static final Cache<String, ConditionExpression> CACHE = CacheBuilder.newBuilder().maximumSize(CACHE_SIZE).build();
+
+    private static final Cache<String, String> INVALID = CacheBuilder.newBuilder().maximumSize(CACHE_SIZE).build();
+
+    private static final Set<String> METHODS = new HashSet<>(Arrays.asList("contains", "includes", "startsWith", "endsWith",
+            "equals", "equalsIgnoreCase", "matches", "indexOf", "toUpperCase", "toLowerCase", "trim", "isEmpty", "length"));
+
+    private final String source;
+
+    private final Node root;
+
+    private ConditionExpression(String source, Node root) {
+        this.source = source;
+        this.root = root;
+    }
+
+    /**
+     * Returns the compiled version of the given expression. Compiled expressions are cached
+     *
+     * @param expression text of the expression
+     * @return the compiled expression
+     * @throws IllegalArgumentException if the expression is not valid
+     */
+    public static ConditionExpression compile(String expression) {
+        String invalid = INVALID.getIfPresent(expression);
+        if (invalid != null) {
+            throw new IllegalArgumentException(invalid);
+        }
+        try {
+            return CACHE.get(expression, () -> new ConditionExpression(expression, new Parser(expression).parse()));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            INVALID.put(expression, e.getCause().getMessage());
+            throw new IllegalArgumentException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Evaluates the expression
+     *
+     * @param resolver function used to resolve the placeholders (${VAR}) found in the expression
+     * @return true if the expression is truthy
+     * @throws IllegalArgumentException if the value of a placeholder outside quotes is not a valid expression
+     */
+    public boolean evaluate(Function<String, String> resolver) {
+        return truthy(root.eval(resolver));
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    private interface Node {
+        Object eval(Function<String, String> resolver);
+    }
+
+    /**
+     * Evaluates the value of a placeholder resolved outside quotes. As in javascript, where the value
+     * would be part of the source, it is evaluated as an expression (i.e. "1 == 2" is false)
+     */
+    private static Object fromText(String value, Function<String, String> resolver) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        if (trimmed.isEmpty()) {
+            return value;
+        }
+        Double number = toNumber(trimmed);
+        if (number != null) {
+            return number;
+        }
+        return compile(trimmed).root.eval(resolver);
+    }
+
+    private static Double toNumber(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1d : 0d;
+        }
+        if (value instanceof String) {
+            String s = ((String) value).trim();
+            if (s.isEmpty()) {
+                return null;
+            }
+            try {
+                return Double.valueOf(s);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static boolean truthy(Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof Number) {
+            double d = ((Number) value).doubleValue();
+            return d != 0 && !Double.isNaN(d);
+        }
+        return !value.toString().isEmpty();
+    }
+
+    private static String asString(Object value) {
+        if (value instanceof Double) {
+            double d = (Double) value;
+            if (d == Math.rint(d) && !Double.isInfinite(d)) {
+                return String.valueOf((long) d);
+            }
+        }
+        return String.valueOf(value);
+    }
+
+    private static boolean looseEquals(Object left, Object right) {
+        if (left == null || right == null) {
+            return left == right;
+        }
+        if (left instanceof Number || right instanceof Number || left instanceof Boolean || right instanceof Boolean) {
+            Double l = toNumber(left);
+            Double r = toNumber(right);
+            if (l != null && r != null) {
+                return l.doubleValue() == r.doubleValue();
+            }
+        }
+        return asString(left).equals(asString(right));
+    }
+
+    private static boolean strictEquals(Object left, Object right) {
+        if (left == null || right == null) {
+            return left == right;
+        }
+        if (left instanceof Number && right instanceof Number) {
+            return ((Number) left).doubleValue() == ((Number) right).doubleValue();
+        }
+        return left.getClass().equals(right.getClass()) && left.equals(right);
+    }
+
+    private static int compare(Object left, Object right) {
+        Double l = toNumber(left);
+        Double r = toNumber(right);
+        if (l != null && r != null) {
+            return Double.compare(l, r);
+        }
+        return asString(left).compareTo(asString(right));
+    }
+
+    private static Object arithmetic(String operator, Object left, Object right) {
+        if ("+".equals(operator) && (left instanceof String || right instanceof String)) {
+            return asString(left) + asString(right);
+        }
+        Double l = toNumber(left);
+        Double r = toNumber(right);
+        if (l == null || r == null) {
+            return Double.NaN;
+        }
+        switch (operator) {
+            case "+":
+                return l + r;
+            case "-":
+                return l - r;
+            case "*":
+                return l * r;
+            case "/":
+                return l / r;
+            default:
+                return l % r;
+        }
+    }
+
+    private static Object invoke(String method, Object target, List<Object> args) {
+        String value = asString(target);
+        String arg = args.isEmpty() ? null : asString(args.get(0));
+        switch (method) {
+            case "contains":
+            case "includes":
+                return value.contains(arg);
+            case "startsWith":
+                return value.startsWith(arg);
+            case "endsWith":
+                return value.endsWith(arg);
+            case "equals":
+                return value.equals(arg);
+            case "equalsIgnoreCase":
+                return value.equalsIgnoreCase(arg);
+            case "matches":
+                return value.matches(arg);
+            case "indexOf":
+                return (double) value.indexOf(arg);
+            case "toUpperCase":
+                return value.toUpperCase();
+            case "toLowerCase":
+                return value.toLowerCase();
+            case "trim":
+                return value.trim();
+            case "isEmpty":
+                return value.isEmpty();
+            case "length":
+                return (double) value.length();
+            default:
+                throw new IllegalArgumentException("Method not supported: " + method);
+        }
+    }
+
+    /**
+     * Recursive descent parser that transforms the expression in a tree of {@link Node}
+     */
+    private static final class Parser {
+
+        private final String text;
+
+        private int pos = 0;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Node parse() {
+            Node node = parseOr();
+            skipSpaces();
+            if (pos < text.length()) {
+                throw error("Unexpected character '" + text.charAt(pos) + "'");
+            }
+            return node;
+        }
+
+        private Node parseOr() {
+            Node left = parseAnd();
+            while (consume("||")) {
+                Node l = left;
+                Node r = parseAnd();
+                left = resolver -> truthy(l.eval(resolver)) || truthy(r.eval(resolver));
+            }
+            return left;
+        }
+
+        private Node parseAnd() {
+            Node left = parseEquality();
+            while (consume("&&")) {
+                Node l = left;
+                Node r = parseEquality();
+                left = resolver -> truthy(l.eval(resolver)) && truthy(r.eval(resolver));
+            }
+            return left;
+        }
+
+        private Node parseEquality() {
+            Node left = parseRelational();
+            while (true) {
+                Node l = left;
+                if (consume("===")) {
+                    Node r = parseRelational();
+                    left = resolver -> strictEquals(l.eval(resolver), r.eval(resolver));
+                } else if (consume("!==")) {
+                    Node r = parseRelational();
+                    left = resolver -> !strictEquals(l.eval(resolver), r.eval(resolver));
+                } else if (consume("==")) {
+                    Node r = parseRelational();
+                    left = resolver -> looseEquals(l.eval(resolver), r.eval(resolver));
+                } else if (consume("!=")) {
+                    Node r = parseRelational();
+                    left = resolver -> !looseEquals(l.eval(resolver), r.eval(resolver));
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private Node parseRelational() {
+            Node left = parseAdditive();
+            while (true) {
+                Node l = left;
+                if (consume("<=")) {
+                    Node r = parseAdditive();
+                    left = resolver -> compare(l.eval(resolver), r.eval(resolver)) <= 0;
+                } else if (consume(">=")) {
+                    Node r = parseAdditive();
+                    left = resolver -> compare(l.eval(resolver), r.eval(resolver)) >= 0;
+                } else if (consume("<")) {
+                    Node r = parseAdditive();
+                    left = resolver -> compare(l.eval(resolver), r.eval(resolver)) < 0;
+                } else if (consume(">")) {
+                    Node r = parseAdditive();
+                    left = resolver -> compare(l.eval(resolver), r.eval(resolver)) > 0;
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private Node parseAdditive() {
+            Node left = parseMultiplicative();
+            while (true) {
+                String operator = peekOperator("+", "-");
+                if (operator == null) {
+                    return left;
+                }
+                Node l = left;
+                Node r = parseMultiplicative();
+                left = resolver -> arithmetic(operator, l.eval(resolver), r.eval(resolver));
+            }
+        }
+
+        private Node parseMultiplicative() {
+            Node left = parseUnary();
+            while (true) {
+                String operator = peekOperator("*", "/", "%");
+                if (operator == null) {
+                    return left;
+                }
+                Node l = left;
+                Node r = parseUnary();
+                left = resolver -> arithmetic(operator, l.eval(resolver), r.eval(resolver));
+            }
+        }
+
+        private Node parseUnary() {
+            skipSpaces();
+            if (peek() == '!' && !text.startsWith("!=", pos)) {
+                pos++;
+                Node operand = parseUnary();
+                return resolver -> !truthy(operand.eval(resolver));
+            }
+            if (peek() == '-') {
+                pos++;
+                Node operand = parseUnary();
+                return resolver -> arithmetic("-", 0d, operand.eval(resolver));
+            }
+            return parsePostfix();
+        }
+
+        private Node parsePostfix() {
+            Node node = parsePrimary();
+            while (true) {
+                skipSpaces();
+                if (peek() != '.') {
+                    return node;
+                }
+                pos++;
+                String method = parseIdentifier();
+                if (!METHODS.contains(method)) {
+                    throw error("Method not supported: " + method);
+                }
+                skipSpaces();
+                Node target = node;
+                if (peek() != '(') {
+                    if (!"length".equals(method)) {
+                        throw error("Property not supported: " + method);
+                    }
+                    node = resolver -> invoke("length", target.eval(resolver), new ArrayList<>());
+                    continue;
+                }
+                pos++;
+                List<Node> args = new ArrayList<>();
+                skipSpaces();
+                if (peek() != ')') {
+                    do {
+                        args.add(parseOr());
+                    } while (consume(","));
+                }
+                expect(')');
+                node = resolver -> {
+                    List<Object> values = new ArrayList<>(args.size());
+                    for (Node arg : args) {
+                        values.add(arg.eval(resolver));
+                    }
+                    return invoke(method, target.eval(resolver), values);
+                };
+            }
+        }
+
+        private Node parsePrimary() {
+            skipSpaces();
+            char c = peek();
+            if (c == '(') {
+                pos++;
+                Node node = parseOr();
+                expect(')');
+                return node;
+            }
+            if (c == '\'' || c == '"') {
+                String literal = parseString(c);
+                if (literal.contains("${")) {
+                    return resolver -> resolver.apply(literal);
+                }
+                return resolver -> literal;
+            }
+            if (c == '$' && text.startsWith("${", pos)) {
+                String placeholder = parsePlaceholder();
+                return resolver -> fromText(resolver.apply(placeholder), resolver);
+            }
+            if (Character.isDigit(c)) {
+                int start = pos;
+                while (pos < text.length() && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) {
+                    pos++;
+                }
+                Double number = Double.valueOf(text.substring(start, pos));
+                return resolver -> number;
+            }
+            if (Character.isLetter(c)) {
+                String identifier = parseIdentifier();
+                switch (identifier) {
+                    case "true":
+                        return resolver -> Boolean.TRUE;
+                    case "false":
+                        return resolver -> Boolean.FALSE;
+                    case "null":
+                    case "undefined":
+                        return resolver -> null;
+                    default:
+                        throw error("Unknown identifier '" + identifier + "'");
+                }
+            }
+            throw error(pos < text.length() ? "Unexpected character '" + c + "'" : "Unexpected end of expression");
+        }
+
+        private String parseString(char quote) {
+            pos++;
+            StringBuilder sb = new StringBuilder();
+            while (pos < text.length()) {
+                char c = text.charAt(pos++);
+                if (c == quote) {
+                    return sb.toString();
+                }
+                if (c == '\\' && pos < text.length()) {
+                    char escaped = text.charAt(pos++);
+                    switch (escaped) {
+                        case 'n':
+                            sb.append('\n');
+                            break;
+                        case 't':
+                            sb.append('\t');
+                            break;
+                        default:
+                            sb.append(escaped);
+                    }
+                } else {
+                    sb.append(c);
+                }
+            }
+            throw error("Unterminated string");
+        }
+
+        private String parsePlaceholder() {
+            int start = pos;
+            int depth = 0;
+            while (pos < text.length()) {
+                char c = text.charAt(pos++);
+                if (c == '{') {
+                    depth++;
+                } else if (c == '}') {
+                    depth--;
+                    if (depth == 0) {
+                        return text.substring(start, pos);
+                    }
+                }
+            }
+            throw error("Unterminated placeholder");
+        }
+
+        private String parseIdentifier() {
+            skipSpaces();
+            int start = pos;
+            while (pos < text.length() && (Character.isLetterOrDigit(text.charAt(pos)) || text.charAt(pos) == '_')) {
+                pos++;
+            }
+            if (start == pos) {
+                throw error("Identifier expected");
+            }
+            return text.substring(start, pos);
+        }
+
+        private String peekOperator(String... operators) {
+            skipSpaces();
+            for (String operator : operators) {
+                if (text.startsWith(operator, pos)) {
+                    pos += operator.length();
+                    return operator;
+                }
+            }
+            return null;
+        }
+
+        private boolean consume(String token) {
+            skipSpaces();
+            if (text.startsWith(token, pos)) {
+                pos += token.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            skipSpaces();
+            if (peek() != c) {
+                throw error("'" + c + "' expected");
+            }
+            pos++;
+        }
+
+        private char peek() {
+            return pos < text.length() ? text.charAt(pos) : '\0';
+        }
+
+        private void skipSpaces() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + pos + " in expression: " + text);
+        }
+    }
+}
@@ -46,7 +46,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
-public class ElasticSearchUtils {
+public class ElasticSearchUtils implements AutoCloseable {
 
     private String es_host;
 
@@ -101,6 +101,18 @@ public class ElasticSearchUtils {
     }
 
 
+    /**
+     * Closes the connection, if it is open. Used by {@link ClientRegistry} to release the clients
+     * created for a thread or a scenario
+     */
+    @Override
+    public void close() {
+        if (this.client != null) {
+            this.client.close();
+            this.client = null;
+        }
+    }
+
     /**
      * Get ES client(Connected previously).
      *
@@ -120,7 +132,8 @@ public class ElasticSearchUtils {
     public boolean createSingleIndex(String indexName) throws
             ElasticsearchException {
         CreateIndexRequest indexRequest = new CreateIndexRequest(indexName);
-        CreateIndexResponse res = this.client.admin().indices().create(indexRequest).actionGet();
+        CreateIndexResponse res = BackendInstrumentation.call("elasticsearch", this.getTarget(), "createIndex", 0L,
+            () -> this.client.admin().indices().create(indexRequest).actionGet());
         return indexExists(indexName);
     }
 
@@ -134,21 +147,24 @@ public class ElasticSearchUtils {
     public boolean dropSingleIndex(String indexName) throws
             ElasticsearchException {
         DeleteIndexRequest deleteIndexRequest = new DeleteIndexRequest(indexName);
-        DeleteIndexResponse res = this.client.admin().indices().delete(deleteIndexRequest).actionGet();
+        DeleteIndexResponse res = BackendInstrumentation.call("elasticsearch", this.getTarget(), "deleteIndex", 0L,
+            () -> this.client.admin().indices().delete(deleteIndexRequest).actionGet());
         return indexExists(indexName);
     }
 
     public boolean dropAllIndexes() {
 
         boolean result = true;
-        ImmutableOpenMap<String, IndexMetaData> indexes = this.client.admin().cluster()
+        ImmutableOpenMap<String, IndexMetaData> indexes = BackendInstrumentation.call("elasticsearch", this.getTarget(), "clusterState", 0L,
+            () -> this.client.admin().cluster()
                 .prepareState()
                 .execute().actionGet()
-                .getState().getMetaData().getIndices();
+                .getState().getMetaData().getIndices());
 
         for (String indexName : indexes.keys().toArray(String.class)) {
             DeleteIndexRequest deleteIndexRequest = new DeleteIndexRequest(indexName);
-            DeleteIndexResponse res = this.client.admin().indices().delete(deleteIndexRequest).actionGet();
+            DeleteIndexResponse res = BackendInstrumentation.call("elasticsearch", this.getTarget(), "deleteIndex", 0L,
+                () -> this.client.admin().indices().delete(deleteIndexRequest).actionGet());
             result = indexExists(indexName);
         }
         return result;
@@ -161,7 +177,8 @@ public class ElasticSearchUtils {
      * @return true if the index exists or false if the index does not exits.
      */
     public boolean indexExists(String indexName) {
-        return this.client.admin().indices().prepareExists(indexName).execute().actionGet().isExists();
+        return BackendInstrumentation.call("elasticsearch", this.getTarget(), "indexExists", 0L,
+            () -> this.client.admin().indices().prepareExists(indexName).execute().actionGet().isExists());
     }
 
     /**
@@ -172,8 +189,8 @@ public class ElasticSearchUtils {
      * @param mappingSource the data that has to be inserted in the mapping.
      */
     public void createMapping(String indexName, String mappingName, ArrayList<XContentBuilder> mappingSource) {
-        IndicesExistsResponse existsResponse = this.client.admin().indices().prepareExists(indexName).execute()
-                .actionGet();
+        IndicesExistsResponse existsResponse = BackendInstrumentation.call("elasticsearch", this.getTarget(), "indexExists", 0L,
+            () -> this.client.admin().indices().prepareExists(indexName).execute().actionGet());
         //If the index does not exists, it will be created without options
         if (!existsResponse.isExists()) {
             if (!createSingleIndex(indexName)) {
@@ -182,14 +199,16 @@ public class ElasticSearchUtils {
             }
         }
         BulkRequestBuilder bulkRequest = this.client.prepareBulk();
+        long requestBytes = 0;
         for (int i = 0; i < mappingSource.size(); i++) {
             int aux = i + 1;
 
             IndexRequestBuilder res = this.client
                     .prepareIndex(indexName, mappingName, String.valueOf(aux)).setSource(mappingSource.get(i));
             bulkRequest.add(res);
+            requestBytes += mappingSource.get(i).bytes().length();
         }
-        bulkRequest.execute();
+        BackendInstrumentation.call("elasticsearch", this.getTarget(), "bulk", requestBytes, () -> bulkRequest.execute().actionGet());
     }
 
     /**
@@ -200,7 +219,8 @@ public class ElasticSearchUtils {
      * @return              true if the mapping exists and false in other case
      */
     public boolean existsMapping(String indexName, String mappingName) {
-        ClusterStateResponse resp = this.client.admin().cluster().prepareState().execute().actionGet();
+        ClusterStateResponse resp = BackendInstrumentation.call("elasticsearch", this.getTarget(), "clusterState", 0L,
+            () -> this.client.admin().cluster().prepareState().execute().actionGet());
 
         if (resp.getState().getMetaData().index(indexName) == null) {
             return false;
@@ -249,12 +269,13 @@ public class ElasticSearchUtils {
                 throw new Exception("Filter not implemented in the library");
         }
 
-        SearchResponse response = this.client.prepareSearch(indexName)
+        SearchResponse response = BackendInstrumentation.call("elasticsearch", this.getTarget(), "search", BackendInstrumentation.sizeOf(query),
+            () -> this.client.prepareSearch(indexName)
                 .setTypes(mappingName)
                 .setSearchType(SearchType.QUERY_AND_FETCH)
                 .setQuery(query)
                 .execute()
-                .actionGet();
+                .actionGet(), ElasticSearchUtils::sizeOf);
         ImmutableOpenMap<Object, Object> aux = response.getContext();
         SearchHit[] results = response.getHits().getHits();
         for (SearchHit hit : results) {
@@ -274,7 +295,8 @@ public class ElasticSearchUtils {
      */
     public void indexDocument(String indexName, String mappingName, String id, XContentBuilder document)
             throws Exception {
-        client.prepareIndex(indexName, mappingName, id).setSource(document).get();
+        BackendInstrumentation.call("elasticsearch", this.getTarget(), "index", document.bytes().length(),
+            () -> client.prepareIndex(indexName, mappingName, id).setSource(document).get());
     }
 
     /**
@@ -285,6 +307,18 @@ public class ElasticSearchUtils {
      * @param id          the id
      */
     public void deleteDocument(String indexName, String mappingName, String id) {
-        client.prepareDelete(indexName, mappingName, id).get();
+        BackendInstrumentation.call("elasticsearch", this.getTarget(), "delete", 0L, () -> client.prepareDelete(indexName, mappingName, id).get());
+    }
+
+    private String getTarget() {
+        return this.es_host + ":" + this.es_native_port;
+    }
+
+    private static long sizeOf(SearchResponse response) {
+        long size = 0;
+        for (SearchHit hit : response.getHits().getHits()) {
+            size += hit.getSourceRef() != null ? hit.getSourceRef().length() : 0;
+        }
+        return size;
     }
 }
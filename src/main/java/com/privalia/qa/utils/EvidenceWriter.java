@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+
+package com.privalia.qa.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the evidences of the scenarios (screenshots and page sources) to disk in background, so the
+ * step (or hook) that captures them only waits for the browser.
+ * <p>
+ * Evidences are written by a small pool of threads (EVIDENCE_WRITER_THREADS, 2 by default) fed by a
+ * bounded queue (EVIDENCE_WRITER_QUEUE, 64 by default). When the queue is full, the evidence is written
+ * by the thread that captured it, so a slow disk never accumulates screenshots in memory.
+ * <p>
+ * Page sources are compressed with gzip. Screenshots identical to one already written (same SHA-256)
+ * are stored as a hard link to the first file, or copied if the file system does not support links.
+ * Pending evidences are written before the JVM exits.
+ *
+ * @author Jose Fernandez
+ */
+public final class EvidenceWriter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EvidenceWriter.class);
+
+    private static final ConcurrentMap<String, Path> SCREENSHOTS = new ConcurrentHashMap<>();
+
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    private static final AtomicInteger PENDING = new AtomicInteger();
+
+    private EvidenceWriter() {
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        int threads = Integer.getInteger("EVIDENCE_WRITER_THREADS", 2);
+        int queue = Integer.getInteger("EVIDENCE_WRITER_QUEUE", 64);
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> new Thread(runnable, "gingerspec-evidence-writer-" + count.incrementAndGet());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 5, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queue), threadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
+        /*Idle threads finish, so they never keep the JVM alive once the pending evidences are written*/
+        executor.allowCoreThreadTimeOut(true);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                if (!awaitPending(30, TimeUnit.SECONDS)) {
+                    LOGGER.warn("Timeout waiting for the evidences to be written");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "gingerspec-evidence-writer-shutdown"));
+        return executor;
+    }
+
+    /**
+     * Writes the given page source compressed with gzip
+     *
+     * @param path   path of the file, without the .gz extension
+     * @param source page source
+     * @return the file where the page source is written
+     */
+    public static File writePageSource(String path, String source) {
+        File file = new File(path + ".gz");
+        submit(() -> {
+            file.getParentFile().mkdirs();
+            try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(file.toPath())), StandardCharsets.UTF_8)) {
+                writer.write(source);
+            } catch (IOException e) {
+                LOGGER.error("Exception on evidence capture", e);
+            }
+        });
+        return file;
+    }
+
+    /**
+     * Writes the given screenshot. If an identical screenshot was already written, the new file is a
+     * link to the previous one
+     *
+     * @param path       path of the file
+     * @param screenshot content of the screenshot
+     * @return the file where the screenshot is written
+     */
+    public static File writeScreenshot(String path, byte[] screenshot) {
+        File file = new File(path);
+        submit(() -> {
+            file.getParentFile().mkdirs();
+            try {
+                Path previous = SCREENSHOTS.putIfAbsent(sha256(screenshot), file.toPath());
+                if (previous == null || !link(file.toPath(), previous)) {
+                    try (OutputStream out = Files.newOutputStream(file.toPath())) {
+                        out.write(screenshot);
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.error("Exception on copying browser screen capture", e);
+            }
+        });
+        return file;
+    }
+
+    /**
+     * Waits until all the pending evidences are written
+     *
+     * @param timeout  maximum time to wait
+     * @param unit     unit of the timeout
+     * @return true if all the evidences were written
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static boolean awaitPending(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (PENDING.get() > 0) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    private static void submit(Runnable task) {
+        PENDING.incrementAndGet();
+        EXECUTOR.execute(() -> {
+            try {
+                task.run();
+            } finally {
+                PENDING.decrementAndGet();
+            }
+        });
+    }
+
+    private static boolean link(Path link, Path existing) {
+        if (link.equals(existing) || !Files.exists(existing)) {
+            return false;
+        }
+        try {
+            Files.deleteIfExists(link);
+            Files.createLink(link, existing);
+            return true;
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            LOGGER.debug("Could not link {} to {}: {}", link, existing, e.getMessage());
+            return false;
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hash = new StringBuilder();
+            for (byte b : digest) {
+                hash.append(String.format("%02x", b));
+            }
+            return hash.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
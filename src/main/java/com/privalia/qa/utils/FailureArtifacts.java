@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+
+package com.privalia.qa.utils;
+
+import io.cucumber.java.Scenario;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Page source and screenshot of the browser (or mobile device) when a scenario fails.
+ * <p>
+ * They are requested to the driver only once, and then used for the attachments of the report (see
+ * {@link #attachTo(Scenario)}) and for the evidences stored on disk (see
+ * {@link com.privalia.qa.specs.CommonG#captureEvidence(FailureArtifacts, String)}). On a remote grid,
+ * each page source or screenshot can be several megabytes.
+ * <p>
+ * The size of the attachments can be limited with the system properties FAILURE_PAGE_SOURCE_MAX_BYTES
+ * (longer page sources are truncated) and FAILURE_SCREENSHOT_MAX_BYTES (bigger screenshots are not
+ * attached). With FAILURE_ATTACHMENTS_GZIP=true the page source is attached compressed with gzip. The
+ * evidences on disk are always complete.
+ *
+ * @author Jose Fernandez
+ */
+public final class FailureArtifacts {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FailureArtifacts.class);
+
+    private static final String TRUNCATED = "\n<!-- page source truncated by gingerspec -->";
+
+    private final boolean mobile;
+
+    private final String pageSource;
+
+    private final String framePageSource;
+
+    private final byte[] screenshot;
+
+    FailureArtifacts(boolean mobile, String pageSource, String framePageSource, byte[] screenshot) {
+        this.mobile = mobile;
+        this.pageSource = pageSource;
+        this.framePageSource = framePageSource;
+        this.screenshot = screenshot;
+    }
+
+    /**
+     * Takes the screenshot of a browser
+     */
+    @FunctionalInterface
+    public interface Screenshooter {
+        byte[] take(WebDriver driver) throws Exception;
+    }
+
+    /**
+     * Captures the page source and the screenshot. If the driver is inside a frame, the source of the
+     * frame is kept, and the driver is switched to the default content to get the source of the page
+     *
+     * @param driver driver
+     * @param mobile true for mobile drivers (frames are not checked)
+     * @return the captured artifacts
+     */
+    public static FailureArtifacts capture(WebDriver driver, boolean mobile) {
+        return capture(driver, mobile, d -> ((TakesScreenshot) d).getScreenshotAs(OutputType.BYTES));
+    }
+
+    /**
+     * Captures the page source and the screenshot, taking the screenshot of browsers (not mobile drivers)
+     * with the given function (i.e. {@link com.privalia.qa.specs.CommonG#takeScreenshot(WebDriver)}, that
+     * captures the whole page in android browsers)
+     *
+     * @param driver      driver
+     * @param mobile      true for mobile drivers (frames are not checked)
+     * @param screenshots takes the screenshot of the browser
+     * @return the captured artifacts
+     */
+    public static FailureArtifacts capture(WebDriver driver, boolean mobile, Screenshooter screenshots) {
+        String pageSource = null;
+        String framePageSource = null;
+        byte[] screenshot = null;
+
+        try {
+            pageSource = driver.getPageSource();
+            if (!mobile && (Boolean) ((JavascriptExecutor) driver).executeScript("return window.top != window.self")) {
+                framePageSource = pageSource;
+                driver.switchTo().defaultContent();
+                pageSource = driver.getPageSource();
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not get the page source: {}", e.getMessage());
+        }
+
+        try {
+            screenshot = mobile ? ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES) : screenshots.take(driver);
+        } catch (Exception e) {
+            LOGGER.warn("Could not take the screenshot: {}", e.getMessage());
+        }
+
+        return new FailureArtifacts(mobile, pageSource, framePageSource, screenshot);
+    }
+
+    /**
+     * Attaches the page source (of the frame, if the driver was inside a frame) and the screenshot
+     * to the report of the scenario
+     *
+     * @param scenario scenario
+     */
+    public void attachTo(Scenario scenario) {
+        String source = framePageSource != null ? framePageSource : pageSource;
+        if (source != null) {
+            byte[] bytes = truncate(source, Integer.getInteger("FAILURE_PAGE_SOURCE_MAX_BYTES", -1));
+            if (Boolean.getBoolean("FAILURE_ATTACHMENTS_GZIP")) {
+                scenario.attach(gzip(bytes), "application/gzip", "Page source html.gz");
+            } else {
+                scenario.attach(bytes, "text/html", "Page source html");
+            }
+        }
+
+        if (screenshot != null) {
+            int maxBytes = Integer.getInteger("FAILURE_SCREENSHOT_MAX_BYTES", -1);
+            if (maxBytes < 0 || screenshot.length <= maxBytes) {
+                scenario.attach(screenshot, "image/png", "Screenshot");
+            } else {
+                scenario.log("Screenshot not attached: " + screenshot.length + " bytes (max " + maxBytes + ")");
+            }
+        }
+    }
+
+    static byte[] truncate(String source, int maxBytes) {
+        byte[] bytes = source.getBytes(StandardCharsets.UTF_8);
+        if (maxBytes < 0 || bytes.length <= maxBytes) {
+            return bytes;
+        }
+        String truncated = new String(bytes, 0, maxBytes, StandardCharsets.UTF_8) + TRUNCATED;
+        return truncated.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public boolean isMobile() {
+        return mobile;
+    }
+
+    /**
+     * @return source of the page (null if it could not be captured)
+     */
+    public String getPageSource() {
+        return pageSource;
+    }
+
+    /**
+     * @return source of the frame where the driver was, or null if it was not inside a frame
+     */
+    public String getFramePageSource() {
+        return framePageSource;
+    }
+
+    /**
+     * @return screenshot in png format (null if it could not be captured)
+     */
+    public byte[] getScreenshot() {
+        return screenshot;
+    }
+}
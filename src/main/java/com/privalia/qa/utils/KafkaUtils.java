@@ -17,6 +17,7 @@
 package com.privalia.qa.utils;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Iterables;
 import com.google.gson.Gson;
 import kafka.admin.AdminOperationException;
 import kafka.admin.AdminUtils;
@@ -57,7 +58,7 @@ import java.util.concurrent.TimeoutException;
  * Generic utilities for operations over Kafka.
  */
 
-public class KafkaUtils {
+public class KafkaUtils implements AutoCloseable {
     private final Logger logger = LoggerFactory
             .getLogger(KafkaUtils.class);
 
@@ -140,6 +141,21 @@ public class KafkaUtils {
         this.zkUtils = new ZkUtils(zkClient, new ZkConnection(zookeeperConnect), isSecureKafkaCluster);
     }
 
+    /**
+     * Closes the connection, if it is open. Used by {@link ClientRegistry} to release the clients
+     * created for a thread or a scenario
+     */
+    @Override
+    public void close() {
+        if (this.zkUtils != null) {
+            this.zkUtils.close();
+            this.zkUtils = null;
+        } else if (this.zkClient != null) {
+            this.zkClient.close();
+        }
+        this.zkClient = null;
+    }
+
     public void setZkHost(String host, String port, String zkPath) {
         if ((zkPath != null) && (!(zkPath.matches("")))  && (!(zkPath.matches("null")))) {
             this.zookeeperConnect = host + ":" + port + "/" + zkPath;
@@ -304,6 +320,8 @@ public class KafkaUtils {
 
     private <K, V> void sendAndConfirmMessage(Object message, Object key, String topicName, long timeoutSeconds, K keyClass, V valueClass) throws InterruptedException, ExecutionException, TimeoutException {
         Producer<K, V> producer = new KafkaProducer<>(props);
+        BackendInstrumentation.Measurement measurement = BackendInstrumentation.start("kafka", this.getTarget(this.props, topicName), "send",
+                BackendInstrumentation.sizeOfAll(Arrays.asList(key, message)));
         try {
             long time = System.currentTimeMillis();
 
@@ -317,8 +335,13 @@ public class KafkaUtils {
             RecordMetadata metadata = (RecordMetadata) producer.send(record).get(timeoutSeconds, TimeUnit.SECONDS);
             long elapsedTime = System.currentTimeMillis() - time;
             logger.debug("Message sent and acknowlegded by Kafka(key={} value={}) meta(partition={}, offset={}) time={}", record.key(), record.value(), metadata.partition(), metadata.offset(), elapsedTime);
+            measurement.succeeded(0L);
         } catch (InterruptedException | ExecutionException | TimeoutException e) {
             logger.error("Message not sent or acknowlegded by Kafka {}", e.getMessage());
+            measurement.failed(e);
+            throw e;
+        } catch (RuntimeException e) {
+            measurement.failed(e);
             throw e;
         } finally {
             producer.flush();
@@ -378,6 +401,11 @@ public class KafkaUtils {
     }
 
     public <K, V> Map readTopicFromBeginning(String topic, K keyClass, V valueClass) {
+        return BackendInstrumentation.call("kafka", this.getTarget(this.propsConsumer, topic), "read", 0L,
+            () -> this.pollTopicFromBeginning(topic, keyClass, valueClass), KafkaUtils::sizeOf);
+    }
+
+    private <K, V> Map<K, V> pollTopicFromBeginning(String topic, K keyClass, V valueClass) {
         Map<K, V> result = new LinkedHashMap<>();
         KafkaConsumer<K, V> consumer = new KafkaConsumer<>(propsConsumer);
         consumer.subscribe(Arrays.asList(topic));
@@ -402,6 +430,14 @@ public class KafkaUtils {
         return result;
     }
 
+    private String getTarget(Properties properties, String topic) {
+        return properties.getProperty("bootstrap.servers") + "/" + topic;
+    }
+
+    private static long sizeOf(Map<?, ?> messages) {
+        return BackendInstrumentation.sizeOfAll(Iterables.concat(messages.keySet(), messages.values()));
+    }
+
 
     /**
      * Set remote schema registry url and port for all future requests
@@ -32,7 +32,7 @@ import java.util.Set;
 /**
  * Generic operations over MongoDB Driver.
  */
-public class MongoDBUtils {
+public class MongoDBUtils implements AutoCloseable {
 
     private static final Logger LOGGER = LoggerFactory
             .getLogger(MongoDBUtils.class);
@@ -75,6 +75,18 @@ public class MongoDBUtils {
         mongoClient.close();
     }
 
+    /**
+     * Closes the connection, if it is open. Used by {@link ClientRegistry} to release the clients
+     * created for a thread or a scenario
+     */
+    @Override
+    public void close() {
+        if (mongoClient != null) {
+            mongoClient.close();
+            mongoClient = null;
+        }
+    }
+
     /**
      * Connect to DataBase of MongoDB(If it not exists, it will be created).
      *
@@ -144,7 +156,8 @@ public class MongoDBUtils {
                 aux.append(rowOp.get(0), boolProperty);
             }
         }
-        dataBase.createCollection(colectionName, aux);
+        BackendInstrumentation.call("mongodb", this.getTarget(), "createCollection", BackendInstrumentation.sizeOf(aux),
+            () -> dataBase.createCollection(colectionName, aux));
     }
 
     /**
@@ -153,7 +166,7 @@ public class MongoDBUtils {
      * @param colectionName the colection name
      */
     public void createMongoDBCollection(String colectionName) {
-        dataBase.createCollection(colectionName, null);
+        BackendInstrumentation.call("mongodb", this.getTarget(), "createCollection", 0L, () -> dataBase.createCollection(colectionName, null));
     }
 
     /**
@@ -162,7 +175,7 @@ public class MongoDBUtils {
      * @param dataBaseName the data base name
      */
     public void dropMongoDBDataBase(String dataBaseName) {
-        mongoClient.dropDatabase(dataBaseName);
+        BackendInstrumentation.run("mongodb", this.getTarget(), "dropDatabase", 0L, () -> mongoClient.dropDatabase(dataBaseName));
     }
 
     /**
@@ -171,7 +184,7 @@ public class MongoDBUtils {
      * @param collectionName the collection name
      */
     public void dropMongoDBCollection(String collectionName) {
-        getMongoDBCollection(collectionName).drop();
+        BackendInstrumentation.run("mongodb", this.getTarget(), "dropCollection", 0L, () -> getMongoDBCollection(collectionName).drop());
     }
 
     /**
@@ -180,15 +193,17 @@ public class MongoDBUtils {
      * @param collectionName the collection name
      */
     public void dropAllDataMongoDBCollection(String collectionName) {
-        DBCollection db = getMongoDBCollection(collectionName);
-        DBCursor objectsList = db.find();
-        try {
-            while (objectsList.hasNext()) {
-                db.remove(objectsList.next());
+        BackendInstrumentation.run("mongodb", this.getTarget(), "removeAll", 0L, () -> {
+            DBCollection db = getMongoDBCollection(collectionName);
+            DBCursor objectsList = db.find();
+            try {
+                while (objectsList.hasNext()) {
+                    db.remove(objectsList.next());
+                }
+            } finally {
+                objectsList.close();
             }
-        } finally {
-            objectsList.close();
-        }
+        });
     }
 
     /**
@@ -210,7 +225,8 @@ public class MongoDBUtils {
                 Object data = castSTringTo(colNameType[1], row.get(x));
                 doc.put(colNameType[0], data);
             }
-            this.dataBase.getCollection(collection).insert(doc);
+            BackendInstrumentation.call("mongodb", this.getTarget(), "insert", BackendInstrumentation.sizeOf(doc),
+                () -> this.dataBase.getCollection(collection).insert(doc));
         }
     }
 
@@ -223,7 +239,8 @@ public class MongoDBUtils {
     public void insertDocIntoMongoDBCollection(String collection, String document) {
 
         DBObject dbObject = (DBObject) JSON.parse(document);
-        this.dataBase.getCollection(collection).insert(dbObject);
+        BackendInstrumentation.call("mongodb", this.getTarget(), "insert", BackendInstrumentation.sizeOf(document),
+            () -> this.dataBase.getCollection(collection).insert(dbObject));
 
     }
 
@@ -248,19 +265,27 @@ public class MongoDBUtils {
                 Object data = castSTringTo(colNameType[1], row.get(x));
                 doc.put(colNameType[0], data);
             }
-            DBCursor cursor = aux.find(doc);
-            try {
-                while (cursor.hasNext()) {
-                    res.add(cursor.next());
+            res.addAll(BackendInstrumentation.call("mongodb", this.getTarget(), "find", BackendInstrumentation.sizeOf(doc), () -> {
+                List<DBObject> found = new ArrayList<>();
+                DBCursor cursor = aux.find(doc);
+                try {
+                    while (cursor.hasNext()) {
+                        found.add(cursor.next());
+                    }
+                } finally {
+                    cursor.close();
                 }
-            } finally {
-                cursor.close();
-            }
+                return found;
+            }, BackendInstrumentation::sizeOf));
         }
         return res;
 
     }
 
+    private String getTarget() {
+        return this.host + ":" + this.port + (this.dataBase != null ? "/" + this.dataBase.getName() : "");
+    }
+
     private List<String[]> coltoArrayList(DataTable table) {
         List<String[]> res = new ArrayList<String[]>();
         // Primero se obiente la primera fila del datatable
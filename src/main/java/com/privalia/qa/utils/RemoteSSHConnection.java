@@ -195,6 +195,14 @@ public class RemoteSSHConnection {
      * @throws Exception Exception
      */
     public void runCommand(String command) throws Exception {
+        String target = session.getUserName() + "@" + session.getHost() + ":" + session.getPort();
+        BackendInstrumentation.call("ssh", target, "exec", BackendInstrumentation.sizeOf(command), () -> {
+            this.execute(command);
+            return this.result;
+        }, BackendInstrumentation::sizeOf);
+    }
+
+    private void execute(String command) throws Exception {
         String result = "";
 
         Channel channel = session.openChannel("exec");
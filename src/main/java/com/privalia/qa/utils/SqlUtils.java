@@ -32,7 +32,7 @@ import java.util.Properties;
  * Generic operations on SQL relational databases. Currently supports mysql/postgres/clickhouse
  * @author Jose Fernandez
  */
-public class SqlUtils {
+public class SqlUtils implements AutoCloseable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SqlUtils.class);
 
@@ -96,6 +96,8 @@ public class SqlUtils {
     public void connect(String host, int port, String dataBaseType, String dataBaseName, Boolean security, String user, String password) throws ClassNotFoundException, SQLException {
 
         LOGGER.debug(String.format("Database type set to: %s", this.dataBaseType));
+        this.host = host;
+        this.port = port;
         this.dataBaseType = dataBaseType;
         this.dataBaseName = dataBaseName;
 
@@ -154,13 +156,12 @@ public class SqlUtils {
      */
     public int executeUpdateQuery(String query) throws SQLException {
 
-        int result = 0;
-
         LOGGER.debug(String.format("Executing query %s", query));
-        try (Statement myStatement = this.sqlConnection.createStatement()) {
-            result = myStatement.executeUpdate(query);
-            return result;
-        }
+        return BackendInstrumentation.call("sql", this.getTarget(), "update", BackendInstrumentation.sizeOf(query), () -> {
+            try (Statement myStatement = this.sqlConnection.createStatement()) {
+                return myStatement.executeUpdate(query);
+            }
+        });
     }
 
     /**
@@ -177,15 +178,27 @@ public class SqlUtils {
      */
     public List<List<String>> executeSelectQuery(String query) throws SQLException {
 
-        List<List<String>> sqlTable = new ArrayList<>();
-        ResultSet rs = null;
+        LOGGER.debug(String.format("Executing query %s", query));
+        return BackendInstrumentation.call("sql", this.getTarget(), "select", BackendInstrumentation.sizeOf(query), () -> {
+            try (Statement myStatement = this.sqlConnection.createStatement()) {
+                return this.resultSetToList(myStatement.executeQuery(query));
+            }
+        }, SqlUtils::sizeOf);
 
-        try (Statement myStatement = this.sqlConnection.createStatement()) {
-            LOGGER.debug(String.format("Executing query %s", query));
-            rs = myStatement.executeQuery(query);
-            return this.resultSetToList(rs);
+    }
+
+    private static long sizeOf(List<List<String>> table) {
+        long size = 0;
+        for (List<String> row : table) {
+            for (String value : row) {
+                size += BackendInstrumentation.sizeOf(value);
+            }
         }
+        return size;
+    }
 
+    private String getTarget() {
+        return this.dataBaseType.toLowerCase() + "://" + this.host + ":" + this.port + "/" + this.dataBaseName;
     }
 
     /**
@@ -316,5 +329,18 @@ public class SqlUtils {
         this.sqlConnection.close();
     }
 
+    /**
+     * Closes the connection, if it is open. Used by {@link ClientRegistry} to release the clients
+     * created for a thread or a scenario
+     *
+     * @throws SQLException the sql exception
+     */
+    @Override
+    public void close() throws SQLException {
+        if (this.connectionStatus()) {
+            this.disconnect();
+        }
+    }
+
 
 }
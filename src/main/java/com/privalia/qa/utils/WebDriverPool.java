@@ -0,0 +1,342 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+
+package com.privalia.qa.utils;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Pool of browser sessions, so the browser is started once per worker thread instead of once per
+ * scenario. It is disabled by default, and it is enabled with -DWEBDRIVER_POOL=true.
+ * <p>
+ * Sessions are grouped by a key (the browser name and the capabilities used to create it). When a
+ * scenario finishes, its session is returned to the pool after resetting the browser state: extra
+ * windows are closed, the local and session storage and the cookies of the current page are removed, and
+ * the browser navigates to about:blank. A session is checked before being reused, and it is closed after
+ * being used by WEBDRIVER_POOL_MAX_REUSE scenarios (50 by default), if the reset fails, or if the
+ * scenario failed. Idle sessions are closed when the JVM exits.
+ * <p>
+ * Cookies are only removed for the domain of the current page (WebDriver does not allow removing the
+ * cookies of other domains), so scenarios that depend on a clean state in several domains should not use
+ * the pool.
+ * <p>
+ * With -DWEBDRIVER_PREWARM=true (with or without the pool), every time a new session is needed a spare
+ * session with the same key is started in background, so the next scenario does not wait for the browser
+ * to start. If the pool is disabled, sessions are closed when released, as usual. If the pool is enabled,
+ * a spare is only started when there are no idle sessions and no other spare is starting, and the spares
+ * that are ready when a session is released are moved to the idle sessions. A scenario waits at most
+ * WEBDRIVER_PREWARM_TIMEOUT seconds (120 by default) for a spare session, and then starts its own. The
+ * spare sessions that are not used are closed when the JVM exits.
+ *
+ * @author Jose Fernandez
+ */
+public final class WebDriverPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WebDriverPool.class);
+
+    private static final Map<String, Deque<PooledSession>> IDLE = new ConcurrentHashMap<>();
+
+    private static final Map<WebDriver, PooledSession> LEASED = new ConcurrentHashMap<>();
+
+    private static final Map<String, Deque<Future<WebDriver>>> SPARES = new ConcurrentHashMap<>();
+
+    private static final ExecutorService PREWARM_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "gingerspec-webdriver-prewarm");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final String CLEAR_STORAGE = "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}";
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(WebDriverPool::closeAll, "gingerspec-webdriver-pool-shutdown"));
+    }
+
+    private WebDriverPool() {
+    }
+
+    /**
+     * Functional interface to create a new browser session
+     */
+    @FunctionalInterface
+    public interface DriverFactory {
+        WebDriver create() throws Exception;
+    }
+
+    /**
+     * Returns true if the pool is enabled (-DWEBDRIVER_POOL=true)
+     *
+     * @return true if enabled
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean("WEBDRIVER_POOL");
+    }
+
+    /**
+     * Returns true if spare sessions are started in background (-DWEBDRIVER_PREWARM=true)
+     *
+     * @return true if enabled
+     */
+    public static boolean isPrewarmEnabled() {
+        return Boolean.getBoolean("WEBDRIVER_PREWARM");
+    }
+
+    /**
+     * Returns an idle session with the given key. If there are none (or none of them is healthy), returns
+     * the spare session started in background, or creates a new one. If prewarm is enabled, a new spare
+     * session is started for the next scenario (with the pool enabled, only if no idle or spare session is left)
+     *
+     * @param key     browser name and capabilities of the session
+     * @param factory creates a new session
+     * @return the session
+     * @throws Exception if the session could not be created
+     */
+    public static WebDriver acquire(String key, DriverFactory factory) throws Exception {
+        Deque<PooledSession> idle = IDLE.computeIfAbsent(key, k -> new ConcurrentLinkedDeque<>());
+        PooledSession session;
+        while ((session = idle.pollFirst()) != null) {
+            if (isHealthy(session.driver)) {
+                LOGGER.debug("Reusing browser session ({} previous uses)", session.uses);
+                LEASED.put(session.driver, session);
+                return session.driver;
+            }
+            LOGGER.debug("Discarding unhealthy browser session");
+            quit(session.driver);
+        }
+
+        WebDriver driver = takeSpare(key);
+        if (driver == null) {
+            driver = factory.create();
+        }
+        session = new PooledSession(key, driver);
+        LEASED.put(session.driver, session);
+
+        if (isPrewarmEnabled() && (!isEnabled() || (idle.isEmpty() && !hasSpares(key)))) {
+            prewarm(key, factory);
+        }
+        return session.driver;
+    }
+
+    /**
+     * Starts a spare session in background
+     *
+     * @param key     browser name and capabilities of the session
+     * @param factory creates a new session
+     */
+    static void prewarm(String key, DriverFactory factory) {
+        LOGGER.debug("Starting spare browser session in background");
+        Future<WebDriver> spare = PREWARM_EXECUTOR.submit(factory::create);
+        SPARES.computeIfAbsent(key, k -> new ConcurrentLinkedDeque<>()).addLast(spare);
+    }
+
+    private static boolean hasSpares(String key) {
+        Deque<Future<WebDriver>> spares = SPARES.get(key);
+        return spares != null && !spares.isEmpty();
+    }
+
+    /**
+     * Returns a spare session (waiting WEBDRIVER_PREWARM_TIMEOUT seconds at most for it to start), or null
+     * if there are no spare sessions or they could not be started in time
+     */
+    private static WebDriver takeSpare(String key) throws InterruptedException {
+        Deque<Future<WebDriver>> spares = SPARES.get(key);
+        Future<WebDriver> spare;
+        while (spares != null && (spare = spares.pollFirst()) != null) {
+            try {
+                WebDriver driver = spare.get(Integer.getInteger("WEBDRIVER_PREWARM_TIMEOUT", 120), TimeUnit.SECONDS);
+                if (isHealthy(driver)) {
+                    LOGGER.debug("Using spare browser session");
+                    return driver;
+                }
+                quit(driver);
+            } catch (ExecutionException e) {
+                LOGGER.warn("Could not start spare browser session: {}", e.getCause().toString());
+            } catch (TimeoutException e) {
+                LOGGER.warn("Spare browser session did not start in time, starting a new one");
+                Future<WebDriver> late = spare;
+                PREWARM_EXECUTOR.submit(() -> {
+                    quit(late.get());
+                    return null;
+                });
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Moves the spare sessions of the given key that have already started to the idle sessions, since
+     * with the pool enabled the next scenario does not need them
+     */
+    private static void adoptSpares(String key, Deque<PooledSession> idle) {
+        Deque<Future<WebDriver>> spares = SPARES.get(key);
+        if (spares == null) {
+            return;
+        }
+        for (Future<WebDriver> spare : spares) {
+            if (!spare.isDone() || !spares.removeFirstOccurrence(spare)) {
+                continue;
+            }
+            try {
+                idle.addLast(new PooledSession(key, spare.get()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                LOGGER.warn("Could not start spare browser session: {}", e.getCause().toString());
+            }
+        }
+    }
+
+    /**
+     * Returns the session to the pool, or closes it if it was not created by the pool, if it was used
+     * too many times or if its state can not be reset
+     *
+     * @param driver  the session
+     * @param discard true to close the session instead of reusing it
+     */
+    public static void release(WebDriver driver, boolean discard) {
+        PooledSession session = LEASED.remove(driver);
+        if (session == null || discard || !isEnabled()) {
+            quit(driver);
+            return;
+        }
+
+        session.uses++;
+        if (session.uses >= Integer.getInteger("WEBDRIVER_POOL_MAX_REUSE", 50)) {
+            LOGGER.debug("Closing browser session after {} uses", session.uses);
+            quit(driver);
+            return;
+        }
+
+        try {
+            reset(driver);
+        } catch (RuntimeException e) {
+            LOGGER.debug("Could not reset browser session, closing it: {}", e.getMessage());
+            quit(driver);
+            return;
+        }
+        Deque<PooledSession> idle = IDLE.computeIfAbsent(session.key, k -> new ConcurrentLinkedDeque<>());
+        idle.addFirst(session);
+        adoptSpares(session.key, idle);
+    }
+
+    /**
+     * Returns true if the given driver was created by the pool and is being used by a scenario
+     *
+     * @param driver the session
+     * @return true if it belongs to the pool
+     */
+    public static boolean isLeased(WebDriver driver) {
+        return LEASED.containsKey(driver);
+    }
+
+    /**
+     * Closes all the idle and spare sessions
+     */
+    public static void closeAll() {
+        for (Deque<PooledSession> idle : IDLE.values()) {
+            PooledSession session;
+            while ((session = idle.pollFirst()) != null) {
+                quit(session.driver);
+            }
+        }
+        for (Deque<Future<WebDriver>> spares : SPARES.values()) {
+            Future<WebDriver> spare;
+            while ((spare = spares.pollFirst()) != null) {
+                try {
+                    quit(spare.get(1, TimeUnit.MINUTES));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException | TimeoutException e) {
+                    LOGGER.debug("Spare browser session not started: {}", e.toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * Leaves the browser as a new session: a single window, in the default content, without storage and
+     * cookies (of the current domain) and showing an empty page
+     *
+     * @param driver the session
+     */
+    static void reset(WebDriver driver) {
+        List<String> handles = new ArrayList<>(driver.getWindowHandles());
+        for (int i = 1; i < handles.size(); i++) {
+            driver.switchTo().window(handles.get(i));
+            driver.close();
+        }
+        driver.switchTo().window(handles.get(0));
+        driver.switchTo().defaultContent();
+
+        if (driver instanceof JavascriptExecutor) {
+            ((JavascriptExecutor) driver).executeScript(CLEAR_STORAGE);
+        }
+        driver.manage().deleteAllCookies();
+        driver.get("about:blank");
+    }
+
+    private static boolean isHealthy(WebDriver driver) {
+        try {
+            Set<String> handles = driver.getWindowHandles();
+            return !handles.isEmpty();
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static void quit(WebDriver driver) {
+        try {
+            driver.quit();
+        } catch (RuntimeException e) {
+            LOGGER.debug("Could not close browser session: {}", e.getMessage());
+        }
+    }
+
+    private static final class PooledSession {
+
+        private final String key;
+
+        private final WebDriver driver;
+
+        private int uses;
+
+        PooledSession(String key, WebDriver driver) {
+            this.key = key;
+            this.driver = driver;
+        }
+    }
+}
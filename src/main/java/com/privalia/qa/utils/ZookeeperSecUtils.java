@@ -27,7 +27,7 @@ import org.slf4j.LoggerFactory;
 
 import java.nio.charset.StandardCharsets;
 
-public class ZookeeperSecUtils {
+public class ZookeeperSecUtils implements AutoCloseable {
 
     private final Logger logger = LoggerFactory.getLogger(ZookeeperSecUtils.class);
 
@@ -135,6 +135,15 @@ public class ZookeeperSecUtils {
         this.curatorZkClient.getZookeeperClient().close();
     }
 
+    /**
+     * Closes the connection, if it is open. Used by {@link ClientRegistry} to release the clients
+     * created for a thread or a scenario
+     */
+    @Override
+    public void close() {
+        this.curatorZkClient.close();
+    }
+
     public void setZookeeperSecConnection(String hosts, int timeout) {
         this.zk_hosts = hosts;
         this.timeout = timeout;
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.aspects;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConditionalBlockContextTest {
+
+    @Test
+    public void nestedBlocksTest() {
+        ConditionalBlockContext context = ConditionalBlockContext.forScenario(new Object());
+        assertThat(context.isActive()).isTrue();
+
+        context.openBlock(true);
+        assertThat(context.isActive()).isTrue();
+        context.openBlock(false);
+        assertThat(context.isActive()).isFalse();
+        context.openBlock(true);
+        assertThat(context.isActive()).as("Block nested in an inactive block must be inactive").isFalse();
+        context.closeBlock();
+        context.closeBlock();
+        assertThat(context.isActive()).isTrue();
+        context.closeBlock();
+        context.closeBlock();
+        assertThat(context.isActive()).isTrue();
+    }
+
+    @Test
+    public void newScenarioResetsContextTest() {
+        Object scenario = new Object();
+        ConditionalBlockContext context = ConditionalBlockContext.forScenario(scenario);
+        context.openBlock(false);
+        assertThat(ConditionalBlockContext.forScenario(scenario)).isSameAs(context);
+        assertThat(ConditionalBlockContext.forScenario(new Object()).isActive()).isTrue();
+    }
+
+    @Test
+    public void contextIsNotSharedBetweenThreadsTest() throws Exception {
+        Object scenario = new Object();
+        ConditionalBlockContext.forScenario(scenario).openBlock(false);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> active = executor.submit(() -> ConditionalBlockContext.forScenario(new Object()).isActive());
+            assertThat(active.get()).isTrue();
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(ConditionalBlockContext.current().isActive()).isFalse();
+    }
+
+    @Test
+    public void skippedStepTest() {
+        ConditionalBlockContext context = ConditionalBlockContext.forScenario(new Object());
+        context.recordStep(10, true, false);
+        assertThat(context.wasSkipped(10)).isTrue();
+        assertThat(context.wasSkipped(11)).isFalse();
+        context.recordStep(12, true, true);
+        assertThat(context.wasSkipped(12)).as("if block steps are never reported as skipped").isFalse();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+
+package com.privalia.qa.aspects;
+
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FeatureCacheTest {
+
+    private void write(File file, String content, long lastModified) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        assertThat(file.setLastModified(lastModified)).isTrue();
+    }
+
+    @Test
+    public void shouldInvalidateEntriesWhenAnIncludedFileChanges() throws IOException {
+        File included = File.createTempFile("included", ".feature");
+        included.deleteOnExit();
+        long now = included.lastModified() - 60000;
+        List<String> lines = Collections.singletonList("Feature: cached");
+        String key = FeatureCache.key("features", "Feature: included from " + included.getName());
+
+        write(included, "aaa", now);
+        FeatureCache.put(key, lines, Collections.emptyMap(), Collections.singletonList(included.getPath()));
+        assertThat(FeatureCache.get(key)).containsExactlyElementsOf(lines);
+
+        write(included, "aaa", now + 10000);
+        assertThat(FeatureCache.get(key)).as("only the modification time changed").containsExactlyElementsOf(lines);
+
+        write(included, "bbb", now + 20000);
+        assertThat(FeatureCache.get(key)).as("same size, different content").isNull();
+
+        write(included, "aaa", now + 30000);
+        FeatureCache.put(key, lines, Collections.emptyMap(), Collections.singletonList(included.getPath()));
+        write(included, "aaaa", now + 30000);
+        assertThat(FeatureCache.get(key)).as("different size").isNull();
+    }
+
+    @Test
+    public void shouldIncludeTheLocationInTheKey() {
+        assertThat(FeatureCache.key("a", "Feature: x")).isNotEqualTo(FeatureCache.key("b", "Feature: x"));
+        assertThat(FeatureCache.key("a", "Feature: x")).isEqualTo(FeatureCache.key("a", "Feature: x"));
+    }
+}
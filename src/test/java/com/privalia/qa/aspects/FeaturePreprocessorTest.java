@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.aspects;
+
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FeaturePreprocessorTest {
+
+    private String process(String feature) throws Exception {
+        return new FeaturePreprocessor(new LoopIncludeTagAspect(), "").process(feature);
+    }
+
+    @Test
+    public void shouldConvertLoopScenarioToScenarioOutline() throws Exception {
+        System.setProperty("PREPROCESSOR_LIST", "a,b");
+        String feature = "Feature: loop\n"
+                + "  @loop(PREPROCESSOR_LIST,VAR)\n"
+                + "  Scenario: looped\n"
+                + "    Given <VAR>\n"
+                + "  Scenario: next\n"
+                + "    Given x";
+
+        assertThat(process(feature)).isEqualTo("Feature: loop\n"
+                + " \n"
+                + "  Scenario Outline: looped\n"
+                + "    Given <VAR>\n"
+                + "Examples:\n"
+                + "| VAR | VAR.id |\n"
+                + "| a | 0 |\n"
+                + "| b | 1 |\n"
+                + "  Scenario: next\n"
+                + "    Given x");
+    }
+
+    @Test
+    public void shouldKeepOrDropBackgroundBlocks() throws Exception {
+        System.setProperty("PREPROCESSOR_BACKGROUND", "true");
+        String feature = "Feature: background\n"
+                + "  @background(PREPROCESSOR_BACKGROUND)\n"
+                + "    Given kept\n"
+                + "  @/background\n"
+                + "  @background(PREPROCESSOR_UNDEFINED)\n"
+                + "    Given dropped\n"
+                + "  @/background\n"
+                + "  Scenario: scenario\n"
+                + "    Given x";
+
+        assertThat(process(feature)).isEqualTo("Feature: background\n"
+                + "    Given kept\n"
+                + "  Scenario: scenario\n"
+                + "    Given x");
+    }
+
+    @Test
+    public void shouldReplaceVariablesOnlyBeforeSteps() throws Exception {
+        System.setProperty("PREPROCESSOR_VAR", "value");
+        String feature = "Feature: ${PREPROCESSOR_VAR}\n"
+                + "  Scenario: ${PREPROCESSOR_VAR}\n"
+                + "    Given ${PREPROCESSOR_VAR}";
+
+        assertThat(process(feature)).isEqualTo("Feature: value\n"
+                + "  Scenario: value\n"
+                + "    Given ${PREPROCESSOR_VAR}");
+    }
+
+    @Test
+    public void shouldProcessFeatureAgainWhenLoopPropertyChanges() throws Exception {
+        String feature = "Feature: cached loop\n"
+                + "  @loop(PREPROCESSOR_CACHED_LIST,VAR)\n"
+                + "  Scenario: looped\n"
+                + "    Given <VAR>";
+
+        System.setProperty("PREPROCESSOR_CACHED_LIST", "a");
+        assertThat(process(feature)).endsWith("| a | 0 |");
+        assertThat(process(feature)).endsWith("| a | 0 |");
+
+        System.setProperty("PREPROCESSOR_CACHED_LIST", "b,c");
+        assertThat(process(feature)).as("Cached result should not be used if the property changes").endsWith("| b | 0 |\n| c | 1 |");
+    }
+}
@@ -20,6 +20,9 @@ package com.privalia.qa.aspects;
 import com.privalia.qa.exceptions.IncludeException;
 import org.testng.annotations.Test;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -69,4 +72,28 @@ public class IncludeTagAspectTest {
 
         assertThatExceptionOfType(Exception.class).isThrownBy(() -> inctag.parseLines(lines, path));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testIncludedScenariosAreServedFromIndex() throws Exception {
+        File feature = File.createTempFile("included", ".feature");
+        feature.deleteOnExit();
+        Files.write(feature.toPath(), ("Feature: included\n"
+                + "  Scenario Outline: outline\n"
+                + "    Given wait <time1> and <time2>\n"
+                + "    Examples:\n"
+                + "    | time1 | time2 |\n"
+                + "    | 1 | 2 |\n"
+                + "  Scenario: plain\n"
+                + "    Given a step\n").getBytes(StandardCharsets.UTF_8));
+
+        assertThat(inctag.featureStepConverter(feature.getPath(), "outline", new String[]{"<time1>", "9", "<time2>", "8"})).isEqualTo("    Given wait 9 and 8\n");
+        assertThat(inctag.featureStepConverter(feature.getPath(), "outline", new String[]{"<time1>", "3", "<time2>", "4"})).isEqualTo("    Given wait 3 and 4\n");
+        assertThat(inctag.featureStepConverter(feature.getPath(), "plain", null)).isEqualTo("    Given a step\n");
+        assertThatExceptionOfType(IncludeException.class).isThrownBy(() -> inctag.featureStepConverter(feature.getPath(), "outline", new String[]{"<time1>", "9"}));
+        assertThatExceptionOfType(IncludeException.class).isThrownBy(() -> inctag.featureStepConverter(feature.getPath(), "missing", null));
+
+        Files.write(feature.toPath(), "Feature: included\n  Scenario: plain\n    Given another step\n".getBytes(StandardCharsets.UTF_8));
+        feature.setLastModified(feature.lastModified() + 2000);
+        assertThat(inctag.featureStepConverter(feature.getPath(), "plain", null)).as("Modified features should be read again").isEqualTo("    Given another step\n");
+    }
+}
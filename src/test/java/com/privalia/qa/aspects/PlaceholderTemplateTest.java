@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.aspects;
+
+import org.apache.commons.text.StringSubstitutor;
+import org.apache.commons.text.lookup.StringLookup;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PlaceholderTemplateTest {
+
+    private final Map<String, String> values = new HashMap<String, String>() {
+        {
+            put("A", "aa");
+            put("B", "bb");
+            put("NAME", "A");
+            put("REF", "${A}-${B}");
+            put("LOOP", "${LOOP}");
+        }
+    };
+
+    private final StringLookup lookup = values::get;
+
+    private String substitutor(String text) {
+        return new StringSubstitutor(lookup).setEnableSubstitutionInVariables(true).replace(text);
+    }
+
+    @Test
+    public void shouldRenderLikeStringSubstitutor() {
+        String[] texts = {"plain text", "${A}", "x${A}y${B}z", "${${NAME}}", "${C:-default}", "${C:-${B}}",
+            "$${A}", "$${A}${B}", "${A", "${A} ${B", "${C}", "{${A}}", "${REF}", "$$${A}", "${A:-}"};
+        for (String text : texts) {
+            assertThat(PlaceholderTemplate.of(text).render(lookup, false)).as(text).isEqualTo(substitutor(text));
+        }
+    }
+
+    @Test
+    public void shouldReturnSameTemplateFromCache() {
+        assertThat(PlaceholderTemplate.of("${A}-${B}")).isSameAs(PlaceholderTemplate.of("${A}-${B}"));
+    }
+
+    @Test
+    public void shouldFailOnUndefinedVariableOnlyWhenRequested() {
+        assertThat(PlaceholderTemplate.of("${C}-${A}").render(lookup, false)).isEqualTo("${C}-aa");
+        assertThatThrownBy(() -> PlaceholderTemplate.of("${C}-${A}").render(lookup, true))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cannot resolve variable 'C' (enableSubstitutionInVariables=true).");
+    }
+
+    @Test
+    public void shouldDetectCyclicSubstitution() {
+        assertThatThrownBy(() -> PlaceholderTemplate.of("${LOOP}").render(lookup, false))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Infinite loop");
+    }
+}
@@ -24,6 +24,12 @@ import org.testng.annotations.Test;
 
 import java.io.FileNotFoundException;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -125,4 +131,25 @@ public class ReplacementAspectTest {
         assertThat(repAspect.replacePlaceholders("${envProperties:wait.time}", true)).as("Unexpected replacement").isEqualTo("2");
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void replacePlaceholdersStrictnessIsPerCall() throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            boolean strict = i % 2 == 0;
+            results.add(executor.submit(() -> {
+                try {
+                    String result = ReplacementAspect.replacePlaceholders("${DUMMYBDD_UNDEFINED_VAR}", strict);
+                    return !strict && "${DUMMYBDD_UNDEFINED_VAR}".equals(result);
+                } catch (AssertionError e) {
+                    return strict;
+                }
+            }));
+        }
+        executor.shutdown();
+        for (Future<Boolean> result : results) {
+            assertThat(result.get()).as("Strict replacements should fail and lenient ones should not").isTrue();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.cucumber.reporter;
+
+import io.cucumber.plugin.event.Status;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DurationHistoryFormatterTest {
+
+    private File history;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        DurationHistoryFormatter.reset();
+        history = File.createTempFile("duration-history", ".tsv");
+        Files.write(history.toPath(), Arrays.asList(
+                "S\t1\t1000\tPASSED\tfeatures/a.feature:3\tScenario A",
+                "S\t1\t200\tPASSED\tfeatures/b.feature:3\tScenario B",
+                "S\t2\t1100\tPASSED\tfeatures/a.feature:3\tScenario A",
+                "S\t2\t210\tPASSED\tfeatures/b.feature:3\tScenario B",
+                "S\t3\t900\tPASSED\tfeatures/a.feature:3\tScenario A",
+                "S\t3\t190\tFAILED\tfeatures/b.feature:3\tScenario B",
+                "T\t3\t50\t2\tI wait '(.*)' seconds"), StandardCharsets.UTF_8);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        DurationHistoryFormatter.reset();
+        history.delete();
+    }
+
+    @Test
+    public void shouldReportScenariosSlowerThanTheMedian() {
+        DurationHistoryFormatter.record("features/a.feature:3", "Scenario A", 2000, Status.PASSED);
+        DurationHistoryFormatter.record("features/b.feature:3", "Scenario B", 1000, Status.PASSED);
+
+        List<String> regressions = DurationHistoryFormatter.update(history, 20, 50);
+
+        /*Scenario B only has 2 passed executions in the history*/
+        assertThat(regressions).containsExactly("2000 ms (median 1000 ms, +100%) features/a.feature:3 Scenario A");
+        assertThat(DurationHistoryFormatter.update(history, 20, 50)).as("already reported").isEmpty();
+    }
+
+    @Test
+    public void shouldIgnoreSmallDifferencesAndFailedScenarios() {
+        DurationHistoryFormatter.record("features/a.feature:3", "Scenario A", 1090, Status.PASSED);
+        assertThat(DurationHistoryFormatter.update(history, 20, 5)).as("less than 100ms").isEmpty();
+
+        DurationHistoryFormatter.record("features/a.feature:3", "Scenario A", 5000, Status.FAILED);
+        assertThat(DurationHistoryFormatter.update(history, 20, 50)).isEmpty();
+    }
+
+    @Test
+    public void shouldAppendTheCurrentExecutionAndKeepTheLastRuns() throws IOException {
+        DurationHistoryFormatter.record("features/a.feature:3", "Scenario A", 1000, Status.PASSED);
+        DurationHistoryFormatter.update(history, 3, 50);
+        DurationHistoryFormatter.update(history, 3, 50);
+
+        List<String> lines = Files.readAllLines(history.toPath(), StandardCharsets.UTF_8);
+        assertThat(lines.get(0)).startsWith("#");
+        assertThat(lines).noneMatch(line -> line.startsWith("S\t1\t"));
+        assertThat(lines).filteredOn(line -> line.startsWith("S\t2\t")).hasSize(2);
+        assertThat(lines).filteredOn(line -> line.startsWith("T\t3\t")).hasSize(1);
+        assertThat(lines).filteredOn(line -> line.endsWith("\tScenario A") && !line.startsWith("S\t2\t") && !line.startsWith("S\t3\t"))
+                .as("current execution is written once").hasSize(1);
+    }
+
+    @Test
+    public void shouldFallBackToTheDefaultThresholdWhenItIsInvalid() {
+        assertThat(DurationHistoryFormatter.parseThreshold("25")).isEqualTo(25);
+        assertThat(DurationHistoryFormatter.parseThreshold("fifty")).isEqualTo(50);
+    }
+
+    @Test
+    public void shouldIgnoreMalformedLines() throws IOException {
+        Files.write(history.toPath(), Arrays.asList("# history", "S\t1\tabc\tPASSED\tfeatures/a.feature:3\tScenario A",
+                "S\t2\t10"), StandardCharsets.UTF_8);
+        DurationHistoryFormatter.record("features/a.feature:3", "Scenario A", 1000, Status.PASSED);
+
+        assertThat(DurationHistoryFormatter.update(history, 20, 50)).isEmpty();
+        assertThat(Files.readAllLines(history.toPath(), StandardCharsets.UTF_8)).noneMatch(line -> line.contains("\tabc\t"));
+    }
+}
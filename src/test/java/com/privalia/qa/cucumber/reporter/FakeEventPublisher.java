@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+
+package com.privalia.qa.cucumber.reporter;
+
+import io.cucumber.plugin.event.Event;
+import io.cucumber.plugin.event.EventHandler;
+import io.cucumber.plugin.event.EventPublisher;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Event publisher that sends the events to the registered handlers synchronously
+ */
+final class FakeEventPublisher implements EventPublisher {
+
+    private final Map<Class<?>, List<EventHandler<?>>> handlers = new HashMap<>();
+
+    @Override
+    public <T> void registerHandlerFor(Class<T> eventType, EventHandler<T> handler) {
+        handlers.computeIfAbsent(eventType, type -> new ArrayList<>()).add(handler);
+    }
+
+    @Override
+    public <T> void removeHandlerFor(Class<T> eventType, EventHandler<T> handler) {
+        handlers.getOrDefault(eventType, new ArrayList<>()).remove(handler);
+    }
+
+    @SuppressWarnings("unchecked")
+    <T extends Event> void send(T event) {
+        for (EventHandler<?> handler : handlers.getOrDefault(event.getClass(), new ArrayList<>())) {
+            ((EventHandler<T>) handler).receive(event);
+        }
+    }
+}
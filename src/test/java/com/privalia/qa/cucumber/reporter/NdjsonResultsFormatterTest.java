@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+
+package com.privalia.qa.cucumber.reporter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.cucumber.plugin.event.Location;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.Result;
+import io.cucumber.plugin.event.Status;
+import io.cucumber.plugin.event.Step;
+import io.cucumber.plugin.event.TestCase;
+import io.cucumber.plugin.event.TestCaseFinished;
+import io.cucumber.plugin.event.TestRunFinished;
+import io.cucumber.plugin.event.TestRunStarted;
+import io.cucumber.plugin.event.TestStepFinished;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NdjsonResultsFormatterTest {
+
+    private static final UUID ID = UUID.randomUUID();
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Map<String, Object> values) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> values.get(method.getName()));
+    }
+
+    private static TestCase testCase() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("getId", ID);
+        values.put("getUri", URI.create("file:features/test.feature"));
+        values.put("getLocation", new Location(3, 3));
+        values.put("getName", "First scenario");
+        values.put("getTags", Arrays.asList("@web", "@smoke"));
+        return proxy(TestCase.class, values);
+    }
+
+    private static PickleStepTestStep testStep() {
+        Map<String, Object> step = new HashMap<>();
+        step.put("getLine", 4);
+        step.put("getKeyword", "Given ");
+        step.put("getText", "I wait '1' seconds");
+        Map<String, Object> values = new HashMap<>();
+        values.put("getStep", proxy(Step.class, step));
+        values.put("getCodeLocation", "UtilsGSpec.idleWait(Integer)");
+        return proxy(PickleStepTestStep.class, values);
+    }
+
+    @Test
+    public void shouldWriteOneLinePerEvent() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NdjsonResultsFormatter formatter = new NdjsonResultsFormatter(out);
+        FakeEventPublisher publisher = new FakeEventPublisher();
+        formatter.setEventPublisher(publisher);
+
+        TestCase testCase = testCase();
+        Instant now = Instant.now();
+        publisher.send(new TestRunStarted(now));
+        publisher.send(new TestStepFinished(now, testCase, testStep(), new Result(Status.PASSED, Duration.ofMillis(1200), null)));
+        publisher.send(new TestCaseFinished(now, testCase, new Result(Status.FAILED, Duration.ofMillis(1500), new AssertionError("broken"))));
+        publisher.send(new TestRunFinished(now, new Result(Status.PASSED, Duration.ofMillis(2000), null)));
+
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(4);
+
+        ObjectMapper mapper = new ObjectMapper();
+        assertThat(mapper.readTree(lines[0]).get("type").asText()).isEqualTo("runStarted");
+
+        JsonNode step = mapper.readTree(lines[1]);
+        assertThat(step.get("type").asText()).isEqualTo("step");
+        assertThat(step.get("testCaseId").asText()).isEqualTo(ID.toString());
+        assertThat(step.get("uri").asText()).isEqualTo("features/test.feature");
+        assertThat(step.get("keyword").asText()).isEqualTo("Given");
+        assertThat(step.get("text").asText()).isEqualTo("I wait '1' seconds");
+        assertThat(step.get("status").asText()).isEqualTo("PASSED");
+        assertThat(step.get("durationMs").asLong()).isEqualTo(1200);
+        assertThat(step.get("thread").asText()).isEqualTo(Thread.currentThread().getName());
+        assertThat(step.has("error")).isFalse();
+
+        JsonNode scenario = mapper.readTree(lines[2]);
+        assertThat(scenario.get("type").asText()).isEqualTo("testCase");
+        assertThat(scenario.get("name").asText()).isEqualTo("First scenario");
+        assertThat(scenario.get("line").asInt()).isEqualTo(3);
+        assertThat(scenario.get("tags").toString()).isEqualTo("[\"@web\",\"@smoke\"]");
+        assertThat(scenario.get("status").asText()).isEqualTo("FAILED");
+        assertThat(scenario.get("error").asText()).isEqualTo("java.lang.AssertionError: broken");
+
+        assertThat(mapper.readTree(lines[3]).get("type").asText()).isEqualTo("runFinished");
+    }
+}
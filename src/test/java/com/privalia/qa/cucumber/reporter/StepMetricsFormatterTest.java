@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+
+package com.privalia.qa.cucumber.reporter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.cucumber.plugin.event.HookTestStep;
+import io.cucumber.plugin.event.HookType;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.Result;
+import io.cucumber.plugin.event.Status;
+import io.cucumber.plugin.event.TestCase;
+import io.cucumber.plugin.event.TestRunFinished;
+import io.cucumber.plugin.event.TestStep;
+import io.cucumber.plugin.event.TestStepFinished;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class StepMetricsFormatterTest {
+
+    private File folder;
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Map<String, Object> values) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> values.get(method.getName()));
+    }
+
+    private static PickleStepTestStep step(String pattern) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("getPattern", pattern);
+        values.put("getCodeLocation", "UtilsGSpec.idleWait(Integer)");
+        return proxy(PickleStepTestStep.class, values);
+    }
+
+    private static HookTestStep hook() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("getHookType", HookType.BEFORE);
+        values.put("getCodeLocation", "HookGSpec.globalSetup(Scenario)");
+        return proxy(HookTestStep.class, values);
+    }
+
+    private static TestStepFinished finished(TestStep step, Status status, long millis) {
+        return new TestStepFinished(Instant.now(), proxy(TestCase.class, new HashMap<>()), step, new Result(status, Duration.ofMillis(millis), null));
+    }
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        StepMetricsFormatter.reset();
+        folder = Files.createTempDirectory("step-metrics").toFile();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        StepMetricsFormatter.reset();
+    }
+
+    @Test
+    public void shouldWriteTheMetricsOfEveryStepDefinition() throws IOException {
+        FakeEventPublisher publisher = new FakeEventPublisher();
+        new StepMetricsFormatter(folder.getPath()).setEventPublisher(publisher);
+
+        PickleStepTestStep wait = step("^I wait '(.*)' seconds$");
+        for (int i = 1; i <= 100; i++) {
+            publisher.send(finished(wait, Status.PASSED, i));
+        }
+        publisher.send(finished(wait, Status.FAILED, 500));
+        publisher.send(finished(wait, Status.SKIPPED, 1000));
+        publisher.send(finished(hook(), Status.PASSED, 5));
+        publisher.send(new TestRunFinished(Instant.now(), new Result(Status.PASSED, Duration.ZERO, null)));
+
+        JsonNode steps = new ObjectMapper().readTree(new File(folder, "step-metrics.json")).get("steps");
+        assertThat(steps).hasSize(2);
+
+        JsonNode waitMetrics = steps.get(0);
+        assertThat(waitMetrics.get("step").asText()).isEqualTo("^I wait '(.*)' seconds$");
+        assertThat(waitMetrics.get("location").asText()).isEqualTo("UtilsGSpec.idleWait(Integer)");
+        assertThat(waitMetrics.get("count").asLong()).as("skipped steps are not recorded").isEqualTo(101);
+        assertThat(waitMetrics.get("failures").asLong()).isEqualTo(1);
+        assertThat(waitMetrics.get("totalMs").asDouble()).isEqualTo(5550.0);
+        assertThat(waitMetrics.get("p50Ms").asDouble()).isCloseTo(51.0, within(51.0 * 0.05));
+        assertThat(waitMetrics.get("p90Ms").asDouble()).isCloseTo(91.0, within(91.0 * 0.05));
+        assertThat(waitMetrics.get("p99Ms").asDouble()).isCloseTo(100.0, within(100.0 * 0.05));
+        assertThat(waitMetrics.get("maxMs").asDouble()).isEqualTo(500.0);
+
+        JsonNode hookMetrics = steps.get(1);
+        assertThat(hookMetrics.get("step").asText()).isEqualTo("@before HookGSpec.globalSetup(Scenario)");
+        assertThat(hookMetrics.get("count").asLong()).isEqualTo(1);
+        assertThat(hookMetrics.get("failures").asLong()).isEqualTo(0);
+
+        List<String> prometheus = Files.readAllLines(new File(folder, "step-metrics.prom").toPath(), StandardCharsets.UTF_8);
+        String label = "step=\"^I wait '(.*)' seconds$\"";
+        assertThat(prometheus).contains(
+                "# TYPE gingerspec_step_duration_seconds summary",
+                "gingerspec_step_duration_seconds_sum{" + label + "} 5.55",
+                "gingerspec_step_duration_seconds_count{" + label + "} 101",
+                "gingerspec_step_duration_max_seconds{" + label + "} 0.5",
+                "gingerspec_step_failures_total{" + label + "} 1",
+                "gingerspec_step_failures_total{step=\"@before HookGSpec.globalSetup(Scenario)\"} 0");
+        String p50 = prometheus.stream().filter(line -> line.startsWith("gingerspec_step_duration_seconds{" + label + ",quantile=\"0.5\"} "))
+                .findFirst().orElse("");
+        assertThat(Double.parseDouble(p50.substring(p50.lastIndexOf(' ') + 1))).isCloseTo(0.051, within(0.051 * 0.05));
+        assertThat(prometheus).filteredOn(line -> line.startsWith("gingerspec_step_duration_seconds{" + label + ",quantile=\"0.99\"} "))
+                .hasSize(1);
+    }
+}
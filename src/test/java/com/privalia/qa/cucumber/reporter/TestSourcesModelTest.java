@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+
+package com.privalia.qa.cucumber.reporter;
+
+import io.cucumber.plugin.event.TestSourceRead;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestSourcesModelTest {
+
+    private static final URI FEATURE = URI.create("file:features/test.feature");
+
+    private static final String SOURCE = "Feature: Test feature\r\n"
+            + "\r\n"
+            + "  Scenario: First scenario\r\n"
+            + "    #log This is a comment\r\n"
+            + "    Given I wait '1' seconds\r\n"
+            + "\r\n";
+
+    private TestSourcesModel model() {
+        TestSourcesModel model = new TestSourcesModel();
+        model.addTestSourceReadEvent(FEATURE, new TestSourceRead(Instant.now(), FEATURE, SOURCE));
+        return model;
+    }
+
+    @Test
+    public void shouldReturnTheTrimmedLine() {
+        TestSourcesModel model = model();
+        assertThat(model.getRawLineString(FEATURE, 0)).isEqualTo("Feature: Test feature");
+        assertThat(model.getRawLineString(FEATURE, 3)).isEqualTo("#log This is a comment");
+        assertThat(model.getRawLineString(FEATURE, 5)).isEmpty();
+    }
+
+    @Test
+    public void shouldReturnEmptyStringForUnknownLines() {
+        TestSourcesModel model = model();
+        assertThat(model.getRawLineString(FEATURE, -1)).isEmpty();
+        assertThat(model.getRawLineString(FEATURE, 100)).isEmpty();
+        assertThat(model.getRawLineString(URI.create("file:features/other.feature"), 0)).isEmpty();
+    }
+
+    @Test
+    public void shouldParseTheFeatureOnce() throws Exception {
+        TestSourcesModel model = model();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Object>> features = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                features.add(executor.submit(() -> model.getFeature(FEATURE)));
+            }
+            Object first = features.get(0).get();
+            assertThat(first).isNotNull();
+            for (Future<Object> feature : features) {
+                assertThat(feature.get()).isSameAs(first);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(model.getFeature(FEATURE).getName()).isEqualTo("Test feature");
+        assertThat(model.getAstNode(FEATURE, 5)).isNotNull();
+        assertThat(model.hasBackground(FEATURE, 5)).isFalse();
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.cucumber.testng;
+
+import com.privalia.qa.utils.BaseGTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+import org.testng.internal.annotations.DataProviderAnnotation;
+import org.testng.xml.XmlSuite;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ParallelExecutionTransformerTest {
+
+    @AfterMethod
+    public void cleanProperties() {
+        System.clearProperty("PARALLEL");
+        System.clearProperty("PARALLEL_THREADS");
+    }
+
+    @Test
+    public void dataProviderNotModifiedByDefaultTest() throws NoSuchMethodException {
+        DataProviderAnnotation annotation = new DataProviderAnnotation();
+        new ParallelExecutionTransformer().transform(annotation, BaseGTest.class.getMethod("scenarios"));
+        assertThat(annotation.isParallel()).isFalse();
+    }
+
+    @Test
+    public void dataProviderParallelWhenEnabledTest() throws NoSuchMethodException {
+        System.setProperty("PARALLEL", "true");
+        DataProviderAnnotation annotation = new DataProviderAnnotation();
+        new ParallelExecutionTransformer().transform(annotation, BaseGTest.class.getMethod("scenarios"));
+        assertThat(annotation.isParallel()).isTrue();
+    }
+
+    @Test
+    public void suiteThreadCountTest() {
+        System.setProperty("PARALLEL", "true");
+        System.setProperty("PARALLEL_THREADS", "3");
+        XmlSuite suite = new XmlSuite();
+        new ParallelExecutionTransformer().alter(Collections.singletonList(suite));
+        assertThat(suite.getDataProviderThreadCount()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.lookups;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EnvPropertyLookupTest {
+
+    private File environmentFile;
+
+    private String previousEnvironment;
+
+    @AfterMethod
+    public void cleanUp() {
+        if (previousEnvironment != null) {
+            System.setProperty("env", previousEnvironment);
+        } else {
+            System.clearProperty("env");
+        }
+        if (environmentFile != null) {
+            environmentFile.delete();
+        }
+        System.clearProperty("ENV_PROPERTIES_RELOAD_INTERVAL");
+    }
+
+    private void useEnvironmentFile(String name, String content) throws IOException, URISyntaxException {
+        File configurationDir = new File(getClass().getClassLoader().getResource("configuration/common.properties").toURI()).getParentFile();
+        environmentFile = new File(configurationDir, name + ".properties");
+        Files.write(environmentFile.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        previousEnvironment = System.getProperty("env");
+        System.setProperty("env", name);
+    }
+
+    @Test
+    public void shouldReloadConfigurationWhenFileIsModified() throws IOException, URISyntaxException {
+        System.setProperty("ENV_PROPERTIES_RELOAD_INTERVAL", "0");
+        useEnvironmentFile("envpropertylookuptest", "wait.time=5\n");
+
+        EnvPropertyLookup lookup = new EnvPropertyLookup();
+        assertThat(lookup.lookup("wait.time")).isEqualTo("5");
+
+        Files.write(environmentFile.toPath(), "wait.time=7\n".getBytes(StandardCharsets.UTF_8));
+        environmentFile.setLastModified(environmentFile.lastModified() + 2000);
+        assertThat(lookup.lookup("wait.time")).as("Configuration should be reloaded after the file is modified").isEqualTo("7");
+        assertThat(lookup.lookup("invalid.property")).isNull();
+    }
+
+    @Test
+    public void shouldNotCheckFilesAgainWithinTheReloadInterval() throws IOException, URISyntaxException {
+        System.setProperty("ENV_PROPERTIES_RELOAD_INTERVAL", "600000");
+        useEnvironmentFile("envpropertylookupintervaltest", "wait.time=5\n");
+
+        EnvPropertyLookup lookup = new EnvPropertyLookup();
+        assertThat(lookup.lookup("wait.time")).isEqualTo("5");
+
+        Files.write(environmentFile.toPath(), "wait.time=7\n".getBytes(StandardCharsets.UTF_8));
+        environmentFile.setLastModified(environmentFile.lastModified() + 2000);
+        assertThat(lookup.lookup("wait.time")).as("Files should not be checked again before the interval elapses").isEqualTo("5");
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.lookups;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FakerLookUpTest {
+
+    @AfterMethod
+    public void cleanUp() {
+        System.clearProperty("FAKER_SEED");
+    }
+
+    @Test
+    public void shouldGenerateValuesWithLocale() {
+        FakerLookUp lookUp = new FakerLookUp();
+        assertThat(lookUp.lookup("number.number_between '1','10'")).matches("[1-9]");
+        assertThat(lookUp.lookup("es:Name.firstName")).isNotEmpty();
+        assertThat(lookUp.lookup(null)).isNull();
+    }
+
+    @Test
+    public void shouldGenerateSameValuesWhenSeedIsSet() throws InterruptedException, ExecutionException {
+        System.setProperty("FAKER_SEED", "1234");
+        List<String> firstRun = generateInNewThread("features/a.feature:3");
+        List<String> secondRun = generateInNewThread("features/a.feature:3");
+        assertThat(firstRun).as("Values generated with the same seed should be the same").isEqualTo(secondRun);
+    }
+
+    @Test
+    public void shouldGenerateDifferentValuesForEveryScenario() throws InterruptedException, ExecutionException {
+        System.setProperty("FAKER_SEED", "1234");
+        assertThat(generateInNewThread("features/a.feature:3")).as("Scenarios running in parallel should not generate the same values")
+                .isNotEqualTo(generateInNewThread("features/a.feature:10"));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            List<String> sameThread = executor.submit(() -> {
+                List<String> values = generate("features/a.feature:10");
+                values.addAll(generate("features/a.feature:3"));
+                return values;
+            }).get();
+            assertThat(sameThread.subList(10, 20)).as("Values should not depend on the thread or the previous scenarios")
+                    .isEqualTo(generateInNewThread("features/a.feature:3"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static List<String> generate(String scenario) {
+        FakerLookUp.startScenario(scenario);
+        FakerLookUp lookUp = new FakerLookUp();
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            values.add(lookUp.lookup("number.number_between '1','1000000'"));
+            values.add(lookUp.lookup("Internet.emailAddress"));
+        }
+        return values;
+    }
+
+    private List<String> generateInNewThread(String scenario) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            return executor.submit(() -> generate(scenario)).get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
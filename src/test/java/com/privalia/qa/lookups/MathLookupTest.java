@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.lookups;
+
+import com.privalia.qa.utils.ThreadProperty;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MathLookupTest {
+
+    private final MathLookup lookup = new MathLookup();
+
+    @Test
+    public void shouldEvaluateExpressions() {
+        assertThat(lookup.lookup("(1+2)*5")).isEqualTo("15.0");
+        assertThat(lookup.lookup("sqrt(16) + 2e1")).isEqualTo("24.0");
+        assertThat(lookup.lookup("2 * pi")).isEqualTo(String.valueOf(2 * Math.PI));
+    }
+
+    @Test
+    public void shouldEvaluateExpressionsWithThreadPropertyVariables() {
+        ThreadProperty.set("mathLookupPrice", "10");
+        assertThat(lookup.lookup("mathLookupPrice * 2")).isEqualTo("20.0");
+        ThreadProperty.set("mathLookupPrice", "15");
+        assertThat(lookup.lookup("mathLookupPrice * 2")).as("Cached expression should use the new value").isEqualTo("30.0");
+    }
+
+    @Test
+    public void shouldFailWithUndefinedOrInvalidVariables() {
+        assertThatThrownBy(() -> lookup.lookup("mathLookupUndefined + 1")).isInstanceOf(IllegalArgumentException.class);
+        ThreadProperty.set("mathLookupText", "abc");
+        assertThatThrownBy(() -> lookup.lookup("mathLookupText + 1")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.utils;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BackendInstrumentationTest {
+
+    private BackendMetrics.Endpoint endpoint(String backend, String operation) {
+        return BackendInstrumentation.getMetrics().getEndpoints().stream()
+                .filter(e -> e.getBackend().equals(backend) && e.getOperation().equals(operation))
+                .findFirst().orElse(null);
+    }
+
+    @Test
+    public void shouldRecordSuccessfulCalls() {
+        String result = BackendInstrumentation.call("test-ok", "localhost:1234", "select", BackendInstrumentation.sizeOf("ñ"),
+            () -> "result", BackendInstrumentation::sizeOf);
+
+        assertThat(result).isEqualTo("result");
+        BackendMetrics.Endpoint endpoint = endpoint("test-ok", "select");
+        assertThat(endpoint.getTarget()).isEqualTo("localhost:1234");
+        assertThat(endpoint.getLatency().getCount()).isEqualTo(1);
+        assertThat(endpoint.getRequestBytes()).isEqualTo(2);
+        assertThat(endpoint.getResponseBytes()).isEqualTo(6);
+        assertThat(endpoint.getErrors()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldRecordAndRethrowErrors() {
+        assertThatThrownBy(() -> BackendInstrumentation.run("test-error", "localhost:1234", "update", 0L, () -> {
+            throw new IOException("connection refused");
+        })).isInstanceOf(IOException.class).hasMessage("connection refused");
+
+        BackendMetrics.Endpoint endpoint = endpoint("test-error", "update");
+        assertThat(endpoint.getLatency().getCount()).isEqualTo(1);
+        assertThat(endpoint.getErrors()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotifyRegisteredListeners() {
+        List<BackendCall> calls = new CopyOnWriteArrayList<>();
+        BackendListener listener = calls::add;
+        BackendInstrumentation.addListener(listener);
+        try {
+            BackendInstrumentation.start("test-listener", "topic", "send", 10L).succeeded(3L);
+        } finally {
+            BackendInstrumentation.removeListener(listener);
+        }
+        BackendInstrumentation.start("test-listener", "topic", "send", 10L).succeeded(3L);
+
+        assertThat(calls).hasSize(1);
+        assertThat(calls.get(0).getRequestBytes()).isEqualTo(10L);
+        assertThat(calls.get(0).getResponseBytes()).isEqualTo(3L);
+        assertThat(calls.get(0).isFailed()).isFalse();
+        assertThat(endpoint("test-listener", "send").getLatency().getCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldIgnoreFailingListeners() {
+        BackendListener listener = call -> {
+            throw new IllegalStateException("broken listener");
+        };
+        BackendInstrumentation.addListener(listener);
+        try {
+            assertThat(BackendInstrumentation.call("test-broken", "host", "read", 0L, () -> 1)).isEqualTo(1);
+        } finally {
+            BackendInstrumentation.removeListener(listener);
+        }
+    }
+
+    @Test
+    public void shouldOnlySerializeObjectsWhenOtherListenersAreRegistered() {
+        AtomicInteger serializations = new AtomicInteger();
+        Object document = new Object() {
+            @Override
+            public String toString() {
+                serializations.incrementAndGet();
+                return "{\"a\": 1}";
+            }
+        };
+        assertThat(BackendInstrumentation.sizeOf("ñ€😀")).isEqualTo(9);
+        assertThat(BackendInstrumentation.sizeOf(document)).isEqualTo(BackendInstrumentation.UNKNOWN_SIZE);
+        assertThat(BackendInstrumentation.sizeOfAll(Arrays.asList("ab", document))).isEqualTo(BackendInstrumentation.UNKNOWN_SIZE);
+        assertThat(serializations).hasValue(0);
+
+        BackendListener listener = call -> { };
+        BackendInstrumentation.addListener(listener);
+        try {
+            assertThat(BackendInstrumentation.sizeOf(document)).isEqualTo(8);
+        } finally {
+            BackendInstrumentation.removeListener(listener);
+        }
+        assertThat(serializations).hasValue(1);
+    }
+
+    @Test
+    public void shouldReportUnknownSizes() {
+        BackendInstrumentation.call("test-unknown", "host", "query", BackendInstrumentation.UNKNOWN_SIZE, () -> new Object());
+        BackendMetrics.Endpoint endpoint = endpoint("test-unknown", "query");
+        assertThat(endpoint.getRequestBytes()).isEqualTo(BackendInstrumentation.UNKNOWN_SIZE);
+        assertThat(endpoint.getResponseBytes()).isEqualTo(BackendInstrumentation.UNKNOWN_SIZE);
+
+        BackendInstrumentation.call("test-unknown", "host", "query", 4L, () -> "abc", BackendInstrumentation::sizeOf);
+        assertThat(endpoint.getRequestBytes()).isEqualTo(4L);
+        assertThat(endpoint.getResponseBytes()).isEqualTo(3L);
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+
+package com.privalia.qa.utils;
+
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BaseGTestTest {
+
+    @Test
+    public void shouldParseTheLimitsPerTag() {
+        Map<String, Semaphore> limits = BaseGTest.parseTagLimits("@web:4, rest : 16");
+        assertThat(limits).containsOnlyKeys("web", "rest");
+        assertThat(limits.get("web").availablePermits()).isEqualTo(4);
+        assertThat(limits.get("rest").availablePermits()).isEqualTo(16);
+    }
+
+    @Test
+    public void shouldIgnoreInvalidLimits() {
+        assertThat(BaseGTest.parseTagLimits("")).isEmpty();
+        assertThat(BaseGTest.parseTagLimits("@web:four,@rest,@sql:0,:2,@kafka:1:2,@ssh:2")).containsOnlyKeys("ssh");
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.utils;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ClientRegistryTest {
+
+    @Test
+    public void globalScopeReturnsSingletonTest() {
+        ClientRegistry registry = new ClientRegistry(ClientRegistry.Scope.GLOBAL);
+        assertThat(registry.get(SqlUtils.class)).isSameAs(SqlUtil.INSTANCE.getSqlUtils());
+        assertThat(new ClientRegistry(ClientRegistry.Scope.GLOBAL).get(KafkaUtils.class)).isSameAs(KafkaUtil.INSTANCE.getKafkaUtils());
+    }
+
+    @Test
+    public void scenarioScopeReturnsInstancePerRegistryTest() {
+        ClientRegistry registry1 = new ClientRegistry(ClientRegistry.Scope.SCENARIO);
+        ClientRegistry registry2 = new ClientRegistry(ClientRegistry.Scope.SCENARIO);
+        assertThat(registry1.get(SqlUtils.class)).isSameAs(registry1.get(SqlUtils.class));
+        assertThat(registry1.get(SqlUtils.class)).isNotSameAs(registry2.get(SqlUtils.class));
+        assertThat(registry1.get(SqlUtils.class)).isNotSameAs(SqlUtil.INSTANCE.getSqlUtils());
+    }
+
+    @Test
+    public void threadScopeReturnsInstancePerThreadTest() throws ExecutionException, InterruptedException {
+        ClientRegistry registry = new ClientRegistry(ClientRegistry.Scope.THREAD);
+        SqlUtils local = registry.get(SqlUtils.class);
+        assertThat(registry.get(SqlUtils.class)).isSameAs(local);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<SqlUtils> other = executor.submit(() -> registry.get(SqlUtils.class));
+            assertThat(other.get()).isNotSameAs(local);
+        } finally {
+            executor.shutdown();
+            ClientRegistry.clearThreadClients();
+        }
+    }
+
+    @Test
+    public void registeredFactoryIsUsedTest() {
+        ClientRegistry.register(StringBuilder.class, () -> new StringBuilder("custom"));
+        assertThat(new ClientRegistry(ClientRegistry.Scope.SCENARIO).get(StringBuilder.class).toString()).isEqualTo("custom");
+    }
+
+    @Test
+    public void closeableClientsAreClosedWhenClearedTest() throws InterruptedException {
+        AtomicInteger closed = new AtomicInteger();
+        ClientRegistry.register(ClosingClient.class, () -> new ClosingClient(closed));
+
+        ClientRegistry threadRegistry = new ClientRegistry(ClientRegistry.Scope.THREAD);
+        ClosingClient threadClient = threadRegistry.get(ClosingClient.class);
+        ClientRegistry.clearThreadClients();
+        assertThat(closed).hasValue(1);
+        assertThat(threadRegistry.get(ClosingClient.class)).isNotSameAs(threadClient);
+        ClientRegistry.clearThreadClients();
+
+        Thread worker = new Thread(() -> threadRegistry.get(ClosingClient.class));
+        worker.start();
+        worker.join();
+        ClientRegistry.clearFinishedThreadClients();
+        assertThat(closed).hasValue(3);
+
+        ClientRegistry scenarioRegistry = new ClientRegistry(ClientRegistry.Scope.SCENARIO);
+        scenarioRegistry.get(ClosingClient.class);
+        scenarioRegistry.clearScenarioClients();
+        assertThat(closed).hasValue(4);
+    }
+
+    @Test
+    public void builtInClientsCanBeClosedWhenNotConnectedTest() throws Exception {
+        ClientRegistry registry = new ClientRegistry(ClientRegistry.Scope.SCENARIO);
+        registry.get(SqlUtils.class).close();
+        registry.get(MongoDBUtils.class).close();
+        registry.get(CassandraUtils.class).close();
+        registry.get(KafkaUtils.class).close();
+        registry.get(ElasticSearchUtils.class).close();
+        registry.get(ZookeeperSecUtils.class).close();
+    }
+
+    private static final class ClosingClient implements AutoCloseable {
+
+        private final AtomicInteger closed;
+
+        private ClosingClient(AtomicInteger closed) {
+            this.closed = closed;
+        }
+
+        @Override
+        public void close() {
+            closed.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.utils;
+
+import org.testng.annotations.Test;
+
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ConditionExpressionTest {
+
+    private final Function<String, String> resolver = text -> text.replace("${NAME}", "GingerSpec").replace("${COUNT}", "5");
+
+    private boolean eval(String expression) {
+        return ConditionExpression.compile(expression).evaluate(resolver);
+    }
+
+    @Test
+    public void literalsAndComparisonsTest() {
+        assertThat(eval("1==1")).isTrue();
+        assertThat(eval("1==2")).isFalse();
+        assertThat(eval("1 != 2 && 3 >= 3")).isTrue();
+        assertThat(eval("2 < 1 || (4 > 3 && !false)")).isTrue();
+        assertThat(eval("'5' == 5")).isTrue();
+        assertThat(eval("'5' === 5")).isFalse();
+        assertThat(eval("(2 + 3) * 2 == 10 && 7 % 2 == 1")).isTrue();
+        assertThat(eval("'a' + 'b' == 'ab'")).isTrue();
+        assertThat(eval("true")).isTrue();
+        assertThat(eval("-1 < 0")).isTrue();
+    }
+
+    @Test
+    public void stringMethodsTest() {
+        assertThat(eval("'GingerSpec'.contains('Ginger')")).isTrue();
+        assertThat(eval("'GingerSpec'.startsWith('Spec')")).isFalse();
+        assertThat(eval("'GingerSpec'.toLowerCase().endsWith('spec')")).isTrue();
+        assertThat(eval("'GingerSpec'.length == 10")).isTrue();
+        assertThat(eval("'abc123'.matches('[a-z]+\\\\d+')")).isTrue();
+    }
+
+    @Test
+    public void placeholdersTest() {
+        assertThat(eval("'${NAME}'.contains('Ginger')")).isTrue();
+        assertThat(eval("'${NAME}'.contains('foo')")).isFalse();
+        assertThat(eval("${COUNT} > 4")).isTrue();
+    }
+
+    @Test
+    public void placeholdersAreResolvedOnEachEvaluationTest() {
+        ConditionExpression expression = ConditionExpression.compile("'${VALUE}' == 'yes'");
+        assertThat(expression.evaluate(text -> text.replace("${VALUE}", "yes"))).isTrue();
+        assertThat(expression.evaluate(text -> text.replace("${VALUE}", "no"))).isFalse();
+    }
+
+    @Test
+    public void expressionsAreCachedTest() {
+        assertThat(ConditionExpression.compile("1 == 1")).isSameAs(ConditionExpression.compile("1 == 1"));
+    }
+
+    @Test
+    public void invalidExpressionTest() {
+        assertThatThrownBy(() -> ConditionExpression.compile("foo == 1")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ConditionExpression.compile("(1 == 1")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void unsupportedMethodsAreRejectedWhenCompilingTest() {
+        assertThatThrownBy(() -> ConditionExpression.compile("'abc'.substring(1) == 'bc'"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Method not supported: substring");
+        assertThatThrownBy(() -> ConditionExpression.compile("'abc'.substring(1) == 'bc'"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Method not supported: substring");
+    }
+
+    @Test
+    public void placeholdersOutsideQuotesAreEvaluatedAsExpressionsTest() {
+        ConditionExpression expression = ConditionExpression.compile("${CONDITION}");
+        assertThat(expression.evaluate(text -> text.replace("${CONDITION}", "1 == 2"))).isFalse();
+        assertThat(expression.evaluate(text -> text.replace("${CONDITION}", "'a' == 'a'"))).isTrue();
+        assertThat(expression.evaluate(text -> text.replace("${CONDITION}", "false"))).isFalse();
+        assertThatThrownBy(() -> expression.evaluate(text -> text.replace("${CONDITION}", "chrome")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+
+package com.privalia.qa.utils;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EvidenceWriterTest {
+
+    private File folder;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        folder = Files.createTempDirectory("evidences").toFile();
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(folder);
+    }
+
+    @Test
+    public void shouldCompressPageSources() throws Exception {
+        File file = EvidenceWriter.writePageSource(folder + "/scenario_3/chrome-1.html", "<html><body>hello</body></html>");
+        assertThat(file.getName()).isEqualTo("chrome-1.html.gz");
+        assertThat(EvidenceWriter.awaitPending(10, TimeUnit.SECONDS)).isTrue();
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file.toPath()))) {
+            assertThat(IOUtils.toString(in, StandardCharsets.UTF_8)).isEqualTo("<html><body>hello</body></html>");
+        }
+    }
+
+    @Test
+    public void shouldWriteIdenticalScreenshotsOnce() throws Exception {
+        byte[] screenshot = ("screenshot " + System.nanoTime()).getBytes(StandardCharsets.UTF_8);
+        File first = EvidenceWriter.writeScreenshot(folder + "/scenario_3/chrome-1.png", screenshot);
+        assertThat(EvidenceWriter.awaitPending(10, TimeUnit.SECONDS)).isTrue();
+        File second = EvidenceWriter.writeScreenshot(folder + "/scenario_8/chrome-2.png", screenshot);
+        File other = EvidenceWriter.writeScreenshot(folder + "/scenario_8/chrome-3.png", "other".getBytes(StandardCharsets.UTF_8));
+        assertThat(EvidenceWriter.awaitPending(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(Files.readAllBytes(first.toPath())).isEqualTo(screenshot);
+        assertThat(Files.readAllBytes(second.toPath())).isEqualTo(screenshot);
+        assertThat(Files.isSameFile(first.toPath(), second.toPath())).isTrue();
+        assertThat(Files.readAllBytes(other.toPath())).isEqualTo("other".getBytes(StandardCharsets.UTF_8));
+    }
+}
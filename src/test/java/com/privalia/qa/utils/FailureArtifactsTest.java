@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+
+package com.privalia.qa.utils;
+
+import org.apache.commons.io.IOUtils;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FailureArtifactsTest {
+
+    private static final byte[] PNG = {1, 2, 3};
+
+    /**
+     * Fake driver, inside a frame or not, that counts the calls made to the browser
+     */
+    private static WebDriver driver(boolean inFrame, AtomicInteger calls) {
+        boolean[] frame = {inFrame};
+        WebDriver.TargetLocator locator = (WebDriver.TargetLocator) Proxy.newProxyInstance(WebDriver.class.getClassLoader(),
+                new Class<?>[]{WebDriver.TargetLocator.class}, (proxy, method, args) -> {
+                    frame[0] = false;
+                    return null;
+                });
+        return (WebDriver) Proxy.newProxyInstance(WebDriver.class.getClassLoader(),
+                new Class<?>[]{WebDriver.class, JavascriptExecutor.class, TakesScreenshot.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getPageSource":
+                            calls.incrementAndGet();
+                            return frame[0] ? "<frame/>" : "<page/>";
+                        case "executeScript":
+                            return frame[0];
+                        case "switchTo":
+                            return locator;
+                        case "getScreenshotAs":
+                            calls.incrementAndGet();
+                            return PNG;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    @Test
+    public void shouldCaptureThePageAndTheScreenshotOnce() {
+        AtomicInteger calls = new AtomicInteger();
+        FailureArtifacts artifacts = FailureArtifacts.capture(driver(false, calls), false);
+
+        assertThat(artifacts.getPageSource()).isEqualTo("<page/>");
+        assertThat(artifacts.getFramePageSource()).isNull();
+        assertThat(artifacts.getScreenshot()).isEqualTo(PNG);
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldCaptureTheFrameAndThePage() {
+        AtomicInteger calls = new AtomicInteger();
+        FailureArtifacts artifacts = FailureArtifacts.capture(driver(true, calls), false);
+
+        assertThat(artifacts.getFramePageSource()).isEqualTo("<frame/>");
+        assertThat(artifacts.getPageSource()).isEqualTo("<page/>");
+        assertThat(calls.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldUseTheGivenScreenshotFunctionForBrowsers() {
+        byte[] fullPage = {1, 2, 3};
+        AtomicInteger calls = new AtomicInteger();
+        assertThat(FailureArtifacts.capture(driver(false, calls), false, d -> fullPage).getScreenshot()).isEqualTo(fullPage);
+        assertThat(FailureArtifacts.capture(driver(false, calls), true, d -> fullPage).getScreenshot()).isEqualTo(PNG);
+        assertThat(FailureArtifacts.capture(driver(false, calls), false, d -> {
+            throw new IOException("no screenshot");
+        }).getScreenshot()).isNull();
+    }
+
+    @Test
+    public void shouldTruncateLongPageSources() {
+        assertThat(new String(FailureArtifacts.truncate("<html></html>", -1), StandardCharsets.UTF_8)).isEqualTo("<html></html>");
+        assertThat(new String(FailureArtifacts.truncate("<html></html>", 6), StandardCharsets.UTF_8))
+                .startsWith("<html>")
+                .contains("truncated");
+    }
+
+    @Test
+    public void shouldCompressAttachments() throws Exception {
+        byte[] compressed = FailureArtifacts.gzip("<html></html>".getBytes(StandardCharsets.UTF_8));
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertThat(IOUtils.toString(in, StandardCharsets.UTF_8)).isEqualTo("<html></html>");
+        }
+    }
+}
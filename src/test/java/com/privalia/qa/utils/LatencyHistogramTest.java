@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+package com.privalia.qa.utils;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void shouldReturnZeroWhenEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.getCount()).isEqualTo(0);
+        assertThat(histogram.getPercentile(99)).isEqualTo(0);
+        assertThat(histogram.getMax()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldCalculatePercentilesWithinFivePercent() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(1000);
+        assertThat(histogram.getMax()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(1000));
+        assertThat(histogram.getSum()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(500500));
+        assertThat((double) histogram.getPercentile(50)).isCloseTo(TimeUnit.MILLISECONDS.toNanos(500), within(TimeUnit.MILLISECONDS.toNanos(25) * 1.0));
+        assertThat((double) histogram.getPercentile(90)).isCloseTo(TimeUnit.MILLISECONDS.toNanos(900), within(TimeUnit.MILLISECONDS.toNanos(45) * 1.0));
+        assertThat(histogram.getPercentile(100)).isEqualTo(histogram.getMax());
+    }
+}
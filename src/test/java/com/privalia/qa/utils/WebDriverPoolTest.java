@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2021, Veepee
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby  granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE  IS PROVIDED "AS IS"  AND THE AUTHOR DISCLAIMS  ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING  ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS.  IN NO  EVENT  SHALL THE  AUTHOR  BE LIABLE  FOR  ANY SPECIAL,  DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA  OR PROFITS, WHETHER IN AN ACTION OF  CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR  IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+*/
+
+
+package com.privalia.qa.utils;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WebDriverPoolTest {
+
+    /**
+     * Fake browser that records the commands it receives
+     */
+    private static final class FakeBrowser {
+
+        private final List<String> commands = new ArrayList<>();
+
+        private boolean broken;
+
+        private final WebDriver driver = (WebDriver) Proxy.newProxyInstance(WebDriver.class.getClassLoader(),
+                new Class<?>[]{WebDriver.class, JavascriptExecutor.class}, (proxy, method, args) -> {
+                    if ("hashCode".equals(method.getName())) {
+                        return System.identityHashCode(proxy);
+                    }
+                    if ("equals".equals(method.getName())) {
+                        return proxy == args[0];
+                    }
+                    if (broken) {
+                        throw new WebDriverException("session deleted");
+                    }
+                    commands.add(method.getName());
+                    switch (method.getName()) {
+                        case "getWindowHandles":
+                            return new LinkedHashSet<>(Arrays.asList("main", "popup"));
+                        case "switchTo":
+                            return fake(WebDriver.TargetLocator.class, "switchTo");
+                        case "manage":
+                            return fake(WebDriver.Options.class, "manage");
+                        default:
+                            return null;
+                    }
+                });
+
+        private Object fake(Class<?> type, String prefix) {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                commands.add(prefix + "." + method.getName());
+                return null;
+            });
+        }
+    }
+
+    @BeforeMethod
+    public void setUp() {
+        System.setProperty("WEBDRIVER_POOL", "true");
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        System.clearProperty("WEBDRIVER_POOL");
+        System.clearProperty("WEBDRIVER_POOL_MAX_REUSE");
+        System.clearProperty("WEBDRIVER_PREWARM");
+        WebDriverPool.closeAll();
+    }
+
+    @Test
+    public void shouldReuseTheSessionAfterResettingIt() throws Exception {
+        List<FakeBrowser> created = new ArrayList<>();
+        WebDriverPool.DriverFactory factory = () -> {
+            FakeBrowser browser = new FakeBrowser();
+            created.add(browser);
+            return browser.driver;
+        };
+
+        WebDriver first = WebDriverPool.acquire("chrome reuse", factory);
+        assertThat(WebDriverPool.isLeased(first)).isTrue();
+        WebDriverPool.release(first, false);
+        assertThat(WebDriverPool.isLeased(first)).isFalse();
+
+        WebDriver second = WebDriverPool.acquire("chrome reuse", factory);
+        assertThat(second).isSameAs(first);
+        assertThat(created).hasSize(1);
+        assertThat(created.get(0).commands)
+                .contains("close", "switchTo.defaultContent", "executeScript", "manage.deleteAllCookies", "get")
+                .doesNotContain("quit");
+
+        WebDriver other = WebDriverPool.acquire("firefox reuse", factory);
+        assertThat(other).isNotSameAs(first);
+        WebDriverPool.release(second, false);
+        WebDriverPool.release(other, false);
+    }
+
+    @Test
+    public void shouldCloseDiscardedAndWornOutSessions() throws Exception {
+        System.setProperty("WEBDRIVER_POOL_MAX_REUSE", "2");
+        FakeBrowser browser = new FakeBrowser();
+        FakeBrowser replacement = new FakeBrowser();
+        List<FakeBrowser> browsers = new ArrayList<>(Arrays.asList(browser, replacement));
+
+        WebDriver driver = WebDriverPool.acquire("chrome worn", () -> browsers.remove(0).driver);
+        WebDriverPool.release(driver, false);
+        driver = WebDriverPool.acquire("chrome worn", () -> browsers.remove(0).driver);
+        WebDriverPool.release(driver, false);
+        assertThat(browser.commands).endsWith("quit");
+
+        driver = WebDriverPool.acquire("chrome worn", () -> browsers.remove(0).driver);
+        assertThat(driver).isSameAs(replacement.driver);
+        WebDriverPool.release(driver, true);
+        assertThat(replacement.commands).endsWith("quit");
+    }
+
+    @Test
+    public void shouldDiscardUnhealthySessions() throws Exception {
+        FakeBrowser browser = new FakeBrowser();
+        WebDriver driver = WebDriverPool.acquire("chrome broken", () -> browser.driver);
+        WebDriverPool.release(driver, false);
+        browser.broken = true;
+
+        FakeBrowser replacement = new FakeBrowser();
+        assertThat(WebDriverPool.acquire("chrome broken", () -> replacement.driver)).isSameAs(replacement.driver);
+        WebDriverPool.release(replacement.driver, false);
+    }
+
+    @Test
+    public void shouldHandOverTheSpareSession() throws Exception {
+        System.clearProperty("WEBDRIVER_POOL");
+        System.setProperty("WEBDRIVER_PREWARM", "true");
+        List<FakeBrowser> created = Collections.synchronizedList(new ArrayList<>());
+        WebDriverPool.DriverFactory factory = () -> {
+            FakeBrowser browser = new FakeBrowser();
+            created.add(browser);
+            return browser.driver;
+        };
+
+        WebDriver first = WebDriverPool.acquire("chrome prewarm", factory);
+        WebDriverPool.release(first, false);
+        assertThat(created.get(0).commands).endsWith("quit");
+
+        WebDriver second = WebDriverPool.acquire("chrome prewarm", factory);
+        assertThat(second).isNotSameAs(first).isSameAs(created.get(1).driver);
+        WebDriverPool.release(second, false);
+
+        WebDriverPool.closeAll();
+        assertThat(created).hasSize(3);
+        assertThat(created.get(2).commands).endsWith("quit");
+    }
+
+    @Test
+    public void shouldMoveTheSpareSessionToThePool() throws Exception {
+        System.setProperty("WEBDRIVER_PREWARM", "true");
+        List<FakeBrowser> created = Collections.synchronizedList(new ArrayList<>());
+        WebDriverPool.DriverFactory factory = () -> {
+            FakeBrowser browser = new FakeBrowser();
+            created.add(browser);
+            return browser.driver;
+        };
+
+        WebDriver first = WebDriverPool.acquire("chrome pooled prewarm", factory);
+        for (int i = 0; i < 50 && created.size() < 2; i++) {
+            Thread.sleep(100);
+        }
+        Thread.sleep(100);
+        WebDriverPool.release(first, false);
+
+        assertThat(WebDriverPool.acquire("chrome pooled prewarm", factory)).isSameAs(first);
+        WebDriver spare = WebDriverPool.acquire("chrome pooled prewarm", factory);
+        assertThat(spare).as("spare moved to the idle sessions").isNotSameAs(first);
+        assertThat(created).hasSize(2);
+        WebDriverPool.release(first, false);
+        WebDriverPool.release(spare, false);
+    }
+
+    @Test
+    public void shouldNotWaitForeverForTheSpareSession() throws Exception {
+        System.clearProperty("WEBDRIVER_POOL");
+        System.setProperty("WEBDRIVER_PREWARM", "true");
+        System.setProperty("WEBDRIVER_PREWARM_TIMEOUT", "1");
+        CountDownLatch hung = new CountDownLatch(1);
+        List<FakeBrowser> created = Collections.synchronizedList(new ArrayList<>());
+        WebDriverPool.DriverFactory factory = () -> {
+            FakeBrowser browser = new FakeBrowser();
+            if (Thread.currentThread().getName().startsWith("gingerspec-webdriver-prewarm")) {
+                hung.await();
+            }
+            created.add(browser);
+            return browser.driver;
+        };
+
+        try {
+            WebDriverPool.release(WebDriverPool.acquire("chrome hung", factory), false);
+            WebDriver second = WebDriverPool.acquire("chrome hung", factory);
+            assertThat(second).isNotNull();
+            WebDriverPool.release(second, false);
+        } finally {
+            System.clearProperty("WEBDRIVER_PREWARM_TIMEOUT");
+            hung.countDown();
+        }
+    }
+
+    @Test
+    public void shouldCloseSessionsNotCreatedByThePool() {
+        FakeBrowser browser = new FakeBrowser();
+        WebDriverPool.release(browser.driver, false);
+        assertThat(browser.commands).containsExactly("quit");
+    }
+}
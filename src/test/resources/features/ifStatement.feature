@@ -1,14 +1,14 @@
-@ignore
 Feature: Conditional execution
 
   This allows the conditional execution of steps during runtime. All steps enclosed between if (statement) { and }
   will be executed only if the given statement returns true, otherwise, the steps will be skipped.
-  The statement can be any javascript expression that can return a true|false output. You can even
+  The statement is a boolean expression (comparisons, logical operators and the most common string methods),
+  any other javascript expression is evaluated with the javascript engine if there is one. You can even
   use variables created during the scenario execution.
 
   Warning: use this functionality sparingly, or only in very concrete automation cases. We discourage
-  the creation of tests that could return different results on different runs. Also, this functionality
-  has not been tested on multi-threaded mode, so it may break when running tests in parallel
+  the creation of tests that could return different results on different runs. Blocks can be nested, and the
+  state of the blocks is kept per scenario, so it is safe to use when running tests in parallel
 
   Scenario: Using if block to control execution
     * if (1==1) {
@@ -27,4 +27,21 @@ Feature: Conditional execution
     * if ('${NAME}'.contains('foo')) {
     * I run 'echo "This should NOT be executed"' locally
     * I run 'exit 1' locally
+    * }
+
+  Scenario: Using nested if blocks
+    * if (1==1) {
+    * I run 'echo "This should be executed"' locally
+    * if (1==2) {
+    * I run 'echo "This should NOT be executed"' locally
+    * I run 'exit 1' locally
+    * }
+    * I run 'echo "This should be executed"' locally
+    * }
+    * if (1==2) {
+    * if (1==1) {
+    * I run 'echo "This should NOT be executed"' locally
+    * I run 'exit 1' locally
+    * }
+    * I run 'exit 1' locally
     * }
\ No newline at end of file